@@ -0,0 +1,235 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.supplies;
+
+import com.google.protobuf.ByteString;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.spine.example.airport.supplies.SuppliesEventProducer.SerializedEventMarshaller;
+import io.spine.protobuf.AnyPacker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.protobuf.util.Timestamps.fromMillis;
+import static io.grpc.stub.ClientCalls.asyncServerStreamingCall;
+import static io.spine.example.airport.supplies.SuppliesEventProducerGrpc.getSubscribeMethod;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Measures the cost of sending a newly produced event to many subscribers.
+ *
+ * <p>The subscribers are connected to the producer over the in-process gRPC transport. They
+ * receive the events as bytes, so that the time of parsing the events on the client side is
+ * not measured. Each operation produces one event and waits until every subscriber
+ * receives it.
+ *
+ * <p>Besides the time per operation, the benchmark prints the CPU time the threads of
+ * the fan-out pool spent per delivered event in each iteration. The producer serializes
+ * the events and hands them to the subscribers on these threads, so this is the CPU cost of
+ * the fan-out itself, without the client side and the benchmark harness.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int subscribers;
+
+    private final SuppliesEvent event = planeFueled();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final List<Thread> fanOutThreads = new CopyOnWriteArrayList<>();
+
+    private ExecutorService fanOut;
+    private Server server;
+    private ManagedChannel channel;
+    private SuppliesEventProducer producer;
+
+    /**
+     * The subscribers which are yet to receive the last produced event.
+     */
+    private volatile CountDownLatch pending;
+
+    private long delivered;
+    private long fanOutCpuTimeAtStart;
+
+    @Setup(Level.Trial)
+    public void enableCpuTime() {
+        if (!threads.isThreadCpuTimeSupported()) {
+            throw new IllegalStateException("The JVM does not measure the CPU time of threads.");
+        }
+        threads.setThreadCpuTimeEnabled(true);
+    }
+
+    /**
+     * Starts a new producer with the subscribers for each iteration, so that the events
+     * produced by the previous iterations do not pile up in the log.
+     */
+    @Setup(Level.Iteration)
+    public void subscribe() throws IOException, InterruptedException {
+        String name = UUID.randomUUID()
+                          .toString();
+        fanOutThreads.clear();
+        fanOut = newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                    this::newFanOutThread);
+        producer = new SuppliesEventProducer(fanOut);
+        server = InProcessServerBuilder
+                .forName(name)
+                .addService(producer)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder
+                .forName(name)
+                .build();
+        MethodDescriptor<Subscription, SuppliesEvent> generated = getSubscribeMethod();
+        MethodDescriptor<Subscription, ByteString> subscribe = generated
+                .toBuilder(generated.getRequestMarshaller(), new SerializedEventMarshaller())
+                .build();
+        for (int i = 0; i < subscribers; i++) {
+            Subscription subscription = Subscription
+                    .newBuilder()
+                    .setUuid(UUID.randomUUID().toString())
+                    .build();
+            asyncServerStreamingCall(channel.newCall(subscribe, CallOptions.DEFAULT),
+                                     subscription, new Receiver());
+        }
+        deliver();
+        delivered = 0;
+        fanOutCpuTimeAtStart = fanOutCpuTime();
+    }
+
+    @Benchmark
+    public void deliver() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(subscribers);
+        pending = latch;
+        producer.produce(event);
+        latch.await();
+        delivered += subscribers;
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutDown() {
+        long cpuTime = fanOutCpuTime() - fanOutCpuTimeAtStart;
+        System.out.printf("%n%d subscribers: %d events delivered, " +
+                                  "%d ns of fan-out CPU time per event%n",
+                          subscribers, delivered, cpuTime / Math.max(delivered, 1));
+        channel.shutdownNow();
+        server.shutdownNow();
+        fanOut.shutdownNow();
+    }
+
+    private Thread newFanOutThread(Runnable task) {
+        Thread thread = new Thread(task, "fan-out-" + fanOutThreads.size());
+        thread.setDaemon(true);
+        fanOutThreads.add(thread);
+        return thread;
+    }
+
+    /**
+     * Obtains the total CPU time of the threads started by the fan-out pool so far.
+     *
+     * <p>The threads of a fixed pool live until the pool is shut down, so none of them is
+     * missed while the iteration lasts.
+     */
+    private long fanOutCpuTime() {
+        long total = 0;
+        for (Thread thread : fanOutThreads) {
+            long cpuTime = threads.getThreadCpuTime(thread.getId());
+            if (cpuTime > 0) {
+                total += cpuTime;
+            }
+        }
+        return total;
+    }
+
+    private static SuppliesEvent planeFueled() {
+        PlaneId id = PlaneId
+                .newBuilder()
+                .setValue(UUID.randomUUID().toString())
+                .build();
+        PlaneFueled event = PlaneFueled
+                .newBuilder()
+                .setPlaneId(id)
+                .setFuelMass(500)
+                .build();
+        return SuppliesEvent
+                .newBuilder()
+                .setPayload(AnyPacker.pack(event))
+                .setWhenOccurred(fromMillis(System.currentTimeMillis()))
+                .build();
+    }
+
+    /**
+     * Counts down the pending subscribers as the events are received.
+     */
+    private final class Receiver implements StreamObserver<ByteString> {
+
+        @Override
+        public void onNext(ByteString value) {
+            pending.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            // The call is cancelled when the iteration ends.
+        }
+
+        @Override
+        public void onCompleted() {
+            // The stream never completes.
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.supplies;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.protobuf.util.Timestamps.compare;
+import static io.spine.example.airport.supplies.EventType.ALL;
+import static io.spine.example.airport.supplies.EventType.UNRECOGNIZED;
+
+/**
+ * A log of the supplies events partitioned by the {@linkplain EventType event type}.
+ *
+ * <p>Each partition keeps its events sorted by the time they occurred. The type of an event is
+ * found once, when the event is appended. Besides its own partition, every event is put into
+ * the partition of {@code ALL} the events. The event is also serialized once, when appended, so
+ * that it is never serialized again however many subscribers receive it.
+ *
+ * <p>Reading the events of a type which occurred since a given time takes {@code O(log n)} to
+ * find the first event and then goes through the matching events only.
+ *
+ * <p>The events are numbered in the order they are appended. The number is written into
+ * the {@code sequence} field of the serialized event. The history may be read up to
+ * a known number, and the events appended after that number may be read
+ * {@linkplain #appended(long) one by one}, so that the two neither overlap nor leave a gap.
+ * A {@linkplain Listener listener} may {@linkplain #follow(Listener) follow} the log to learn
+ * when new events are appended.
+ *
+ * <p>The log keeps all the appended events, as any of them may be a part of the history of
+ * a new subscription or the event a broken subscription resumes after. The latest events are
+ * also cached in a {@link SuppliesEventRing}, so that the readers which keep up with the log
+ * find the new events without a lookup. The ring holds no events beyond the ones in the log.
+ */
+final class SuppliesEventLog {
+
+    private static final int RECENT_EVENTS = 1024;
+
+    private final Map<EventType, NavigableMap<Position, Entry>> partitions =
+            new EnumMap<>(EventType.class);
+    private final NavigableMap<Long, Entry> bySequence = new ConcurrentSkipListMap<>();
+
+    /**
+     * The cache of the latest entries of {@link #bySequence}.
+     */
+    private final SuppliesEventRing recent = new SuppliesEventRing(RECENT_EVENTS);
+    private final List<Listener> followers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The number of the last appended event.
+     *
+     * <p>Accessed only under the lock of this log.
+     */
+    private long lastSequence;
+
+    SuppliesEventLog() {
+        for (EventType type : EventType.values()) {
+            if (type != UNRECOGNIZED) {
+                partitions.put(type, new ConcurrentSkipListMap<>());
+            }
+        }
+    }
+
+    /**
+     * Appends the given event to the log and notifies the followers.
+     *
+     * <p>The event may have occurred earlier than the events already in the log.
+     */
+    void append(SuppliesEvent event) {
+        checkNotNull(event);
+        EventType type = SuppliesEvents.typeOf(event);
+        ByteString serialized = event.toByteString();
+        synchronized (this) {
+            lastSequence++;
+            long sequence = lastSequence;
+            Entry entry = new Entry(sequence, type, event, withSequence(serialized, sequence));
+            bySequence.put(sequence, entry);
+            recent.publish(entry);
+            Position position = new Position(event.getWhenOccurred(), sequence);
+            partitions.get(ALL)
+                      .put(position, entry);
+            if (type != UNRECOGNIZED) {
+                partitions.get(type)
+                          .put(position, entry);
+            }
+        }
+        for (Listener listener : followers) {
+            listener.onAppended();
+        }
+    }
+
+    /**
+     * Appends the {@code sequence} field to the given serialized event.
+     *
+     * <p>The bytes of the event are not copied.
+     */
+    private static ByteString withSequence(ByteString serialized, long sequence) {
+        ByteString sequenceField = SuppliesEvent.newBuilder()
+                                                .setSequence(sequence)
+                                                .build()
+                                                .toByteString();
+        return serialized.concat(sequenceField);
+    }
+
+    /**
+     * Starts notifying the given listener of the appended events.
+     *
+     * @return the number of the last event appended before the listener started following
+     *         the log; the listener is notified of all the events after it
+     */
+    synchronized long follow(Listener listener) {
+        checkNotNull(listener);
+        followers.add(listener);
+        return lastSequence;
+    }
+
+    /**
+     * Stops notifying the given listener.
+     */
+    void unfollow(Listener listener) {
+        checkNotNull(listener);
+        followers.remove(listener);
+    }
+
+    /**
+     * Obtains the events of the given type which occurred not earlier than the given time.
+     *
+     * <p>The events are ordered by the time they occurred.
+     *
+     * @param type
+     *         the type of the events; {@code ALL} for the events of all the types
+     * @param startingFrom
+     *         the time of the earliest event to return
+     * @param upToSequence
+     *         the number of the last appended event to return; the events appended later
+     *         are skipped
+     */
+    Stream<Entry> since(EventType type, Timestamp startingFrom, long upToSequence) {
+        checkNotNull(type);
+        checkNotNull(startingFrom);
+        return partitionTail(type, new Position(startingFrom, Long.MIN_VALUE), upToSequence);
+    }
+
+    /**
+     * Obtains the events of the given type which follow the given event in the order
+     * the events occurred.
+     *
+     * @param type
+     *         the type of the events; {@code ALL} for the events of all the types
+     * @param whenOccurred
+     *         the time the given event occurred
+     * @param sequence
+     *         the number of the given event
+     * @param upToSequence
+     *         the number of the last appended event to return; the events appended later
+     *         are skipped
+     */
+    Stream<Entry> after(EventType type, Timestamp whenOccurred, long sequence, long upToSequence) {
+        checkNotNull(type);
+        checkNotNull(whenOccurred);
+        return partitionTail(type, new Position(whenOccurred, sequence + 1), upToSequence);
+    }
+
+    private Stream<Entry> partitionTail(EventType type, Position start, long upToSequence) {
+        NavigableMap<Position, Entry> partition = partitions.get(type);
+        if (partition == null) {
+            return Stream.empty();
+        }
+        return partition.tailMap(start, true)
+                        .entrySet()
+                        .stream()
+                        .filter(entry -> entry.getKey().sequence <= upToSequence)
+                        .map(Map.Entry::getValue);
+    }
+
+    /**
+     * Obtains the event with the given number.
+     *
+     * <p>The event is looked up in the log only if it is no longer among
+     * the {@linkplain SuppliesEventRing recent events}.
+     *
+     * @return the event or {@code null} if the event is not appended yet
+     */
+    @Nullable Entry appended(long sequence) {
+        Entry entry = recent.get(sequence);
+        return entry != null
+               ? entry
+               : bySequence.get(sequence);
+    }
+
+    /**
+     * A listener of the events appended to the log.
+     */
+    interface Listener {
+
+        /**
+         * Is called after an event is appended.
+         *
+         * <p>May be called concurrently.
+         */
+        void onAppended();
+    }
+
+    /**
+     * An event with its number and type.
+     */
+    static final class Entry {
+
+        private final long sequence;
+        private final EventType type;
+        private final SuppliesEvent event;
+        private final ByteString serialized;
+
+        private Entry(long sequence, EventType type, SuppliesEvent event, ByteString serialized) {
+            this.sequence = sequence;
+            this.type = type;
+            this.event = event;
+            this.serialized = serialized;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        /**
+         * Obtains the type of the event or {@code UNRECOGNIZED} if the type is unknown.
+         */
+        EventType type() {
+            return type;
+        }
+
+        SuppliesEvent event() {
+            return event;
+        }
+
+        /**
+         * Obtains the event in the serialized form, with the {@code sequence} field set.
+         */
+        ByteString serialized() {
+            return serialized;
+        }
+    }
+
+    /**
+     * The position of an event in a partition.
+     *
+     * <p>The events which occurred at the same time are ordered by the sequence number
+     * assigned when they are appended.
+     */
+    private static final class Position implements Comparable<Position> {
+
+        private final Timestamp whenOccurred;
+        private final long sequence;
+
+        private Position(Timestamp whenOccurred, long sequence) {
+            this.whenOccurred = whenOccurred;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int byTime = compare(whenOccurred, other.whenOccurred);
+            return byTime != 0
+                   ? byTime
+                   : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position other = (Position) o;
+            return sequence == other.sequence && whenOccurred.equals(other.whenOccurred);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sequence);
+        }
+    }
+}
@@ -26,53 +26,176 @@
 
 package io.spine.example.airport.supplies;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Timestamp;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import io.spine.example.airport.supplies.SuppliesEventProducerGrpc.SuppliesEventProducerImplBase;
+import io.spine.example.airport.supplies.SuppliesEventLog.Entry;
+import io.spine.logging.Logging;
 import io.spine.protobuf.AnyPacker;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.protobuf.util.Timestamps.compare;
 import static com.google.protobuf.util.Timestamps.fromMillis;
-import static io.spine.example.airport.supplies.SuppliesEvents.matches;
+import static io.grpc.stub.ServerCalls.asyncServerStreamingCall;
+import static io.spine.example.airport.supplies.EventType.ALL;
+import static io.spine.example.airport.supplies.SuppliesEventProducerGrpc.SERVICE_NAME;
+import static io.spine.example.airport.supplies.SuppliesEventProducerGrpc.getSubscribeMethod;
 import static java.time.Duration.ofMinutes;
-import static java.util.Collections.synchronizedList;
+import static java.util.Collections.emptyIterator;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Produces events to be consumed by the {@code Takeoffs and Landings} Context.
+ *
+ * <p>A subscriber first receives the matching events produced so far, in the order they
+ * occurred. Then the stream stays open, and the subscriber receives the newly produced events
+ * as they are produced, until it cancels the subscription. Each event is sent to
+ * a subscriber once. The events are sent only as fast as the subscriber receives them.
+ *
+ * <p>Each event carries its {@code sequence} number and the {@code hand_off} number of
+ * the subscription, which separates the history from the newly produced events. A subscriber
+ * which resumes a broken subscription {@linkplain Subscription#getResumeAfter() after} the last
+ * event it received gets the rest of the stream it would have received, so that each event is
+ * still received once. The numbers are only valid within the {@code epoch} carried by the events
+ * as well. The producer does not survive a restart, so it starts a new epoch each time it is
+ * created, and the subscriptions resumed after an event of another epoch start over.
+ *
+ * <p>Each event is serialized once, when it is produced. The {@link Subscription} echoed in
+ * the events sent to a subscriber is serialized once per subscription and appended to
+ * the bytes of each event, as the fields of a Protobuf message may follow in any order.
+ *
+ * <p>The producer binds the {@code Subscribe} method itself rather than extending
+ * the generated {@code SuppliesEventProducerImplBase}, as the generated binding is final and
+ * would make gRPC serialize each event again for every subscriber.
  */
 // #docfragment "SuppliesEventProducer"
-public final class SuppliesEventProducer extends SuppliesEventProducerImplBase {
+public final class SuppliesEventProducer implements BindableService {
 // #enddocfragment "SuppliesEventProducer"
 
     private static final Random rand = new SecureRandom();
-    private static final List<SuppliesEvent> historicalEvents = synchronizedList(new ArrayList<>());
 
-    // #docfragment "SuppliesEventProducer"
+    private final SuppliesEventLog historicalEvents = new SuppliesEventLog();
+    private final Executor executor;
+
+    /**
+     * The time this producer was created in milliseconds since the Unix epoch.
+     */
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * Creates a new producer.
+     *
+     * @param executor
+     *         the executor to send the newly produced events to the subscribers on
+     */
+    SuppliesEventProducer(Executor executor) {
+        this.executor = checkNotNull(executor);
+    }
+
+    /**
+     * Binds the {@code Subscribe} method to send the already serialized events.
+     *
+     * <p>The bound method sends the same events as {@link #subscribe(Subscription, StreamObserver)
+     * subscribe()}, but passes the cached bytes of each event to gRPC as they are.
+     */
     @Override
+    public ServerServiceDefinition bindService() {
+        MethodDescriptor<Subscription, SuppliesEvent> generated = getSubscribeMethod();
+        MethodDescriptor<Subscription, ByteString> subscribe = generated
+                .toBuilder(generated.getRequestMarshaller(), new SerializedEventMarshaller())
+                .build();
+        return ServerServiceDefinition
+                .builder(SERVICE_NAME)
+                .addMethod(subscribe, asyncServerStreamingCall(this::subscribeSerialized))
+                .build();
+    }
+
+    // #docfragment "SuppliesEventProducer"
+    /**
+     * Starts sending the events matching the given request as {@code SuppliesEvent} messages.
+     */
     public void subscribe(Subscription request, StreamObserver<SuppliesEvent> responseObserver) {
-        // #enddocfragment "SuppliesEventProducer"
-        produceRandom();
-        // #docfragment "SuppliesEventProducer"
-        Timestamp timestamp = request.getStartingFrom();
-        historicalEvents
-                .stream()
-                .filter(event -> compare(event.getWhenOccurred(), timestamp) >= 0)
-                .filter(event -> matches(event, request.getEventType()))
-                .map(event -> event.toBuilder()
-                                   .setSubscription(request)
-                                   .build())
-                .onClose(responseObserver::onCompleted)
-                .forEach(responseObserver::onNext);
+        ServerCallStreamObserver<SuppliesEvent> call =
+                (ServerCallStreamObserver<SuppliesEvent>) responseObserver;
+        follow(request, call, SuppliesEventProducer::parse);
     }
     // #enddocfragment "SuppliesEventProducer"
 
-    private static void produceRandom() {
+    private void subscribeSerialized(Subscription request, StreamObserver<ByteString> observer) {
+        ServerCallStreamObserver<ByteString> call = (ServerCallStreamObserver<ByteString>) observer;
+        follow(request, call, Function.identity());
+    }
+
+    private static SuppliesEvent parse(ByteString event) {
+        try {
+            return SuppliesEvent.parseFrom(event);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Unable to parse a cached supplies event.", e);
+        }
+    }
+
+    // #docfragment "SuppliesEventProducer"
+    /**
+     * Starts sending the events matching the given request over the given call.
+     *
+     * @param toMessage
+     *         the function converting a serialized event into a message of the call
+     */
+    private <T> void follow(Subscription request,
+                            ServerCallStreamObserver<T> call,
+                            Function<ByteString, T> toMessage) {
+        LiveSubscription<T> subscription = new LiveSubscription<>(request, call, toMessage);
+        call.setOnReadyHandler(subscription::drain);
+        call.setOnCancelHandler(() -> historicalEvents.unfollow(subscription));
+        long handOff = historicalEvents.follow(subscription);
+        if (call.isCancelled()) {
+            historicalEvents.unfollow(subscription);
+            return;
+        }
+        subscription.start(handOff);
+    }
+    // #enddocfragment "SuppliesEventProducer"
+
+    /**
+     * Starts producing the events of a random plane once per the given period.
+     */
+    void startProducing(ScheduledExecutorService scheduler, Duration period) {
+        checkNotNull(scheduler);
+        checkNotNull(period);
+        long millis = period.toMillis();
+        scheduler.scheduleAtFixedRate(this::produceRandom, 0, millis, MILLISECONDS);
+    }
+
+    /**
+     * Adds the given event to the produced ones and sends it to the subscribers.
+     */
+    void produce(SuppliesEvent event) {
+        checkNotNull(event);
+        historicalEvents.append(event);
+    }
+
+    private void produceRandom() {
         AirplaneId id = AirplaneId.newId();
         Instant preFlightCheckComplete = randomTimeInPast();
         Instant defrostingComplete = randomTimeInPast();
@@ -90,7 +213,7 @@ public final class SuppliesEventProducer extends SuppliesEventProducerImplBase {
         putPreFlightCheckComplete(supplies);
     }
 
-    private static void putFueled(PlaneSupplies supplies) {
+    private void putFueled(PlaneSupplies supplies) {
         PlaneId id = PlaneId
                 .newBuilder()
                 .setValue(supplies.id().uuid())
@@ -106,10 +229,10 @@ public final class SuppliesEventProducer extends SuppliesEventProducerImplBase {
                 .setPayload(AnyPacker.pack(event))
                 .setWhenOccurred(when)
                 .build();
-        historicalEvents.add(suppliesEvent);
+        produce(suppliesEvent);
     }
 
-    private static void putFrostingChecked(PlaneSupplies supplies) {
+    private void putFrostingChecked(PlaneSupplies supplies) {
         PlaneId id = PlaneId
                 .newBuilder()
                 .setValue(supplies.id().uuid())
@@ -124,10 +247,10 @@ public final class SuppliesEventProducer extends SuppliesEventProducerImplBase {
                 .setPayload(AnyPacker.pack(event))
                 .setWhenOccurred(when)
                 .build();
-        historicalEvents.add(suppliesEvent);
+        produce(suppliesEvent);
     }
 
-    private static void putPreFlightCheckComplete(PlaneSupplies supplies) {
+    private void putPreFlightCheckComplete(PlaneSupplies supplies) {
         boolean checkSuccessful = supplies.whenPreFlightCheckComplete() != null;
         if (checkSuccessful) {
             PlaneId id = PlaneId
@@ -144,13 +267,230 @@ public final class SuppliesEventProducer extends SuppliesEventProducerImplBase {
                     .setPayload(AnyPacker.pack(event))
                     .setWhenOccurred(when)
                     .build();
-            historicalEvents.add(suppliesEvent);
+            produce(suppliesEvent);
         }
     }
 
     private static Instant randomTimeInPast() {
         return Instant.now().minus(ofMinutes(rand.nextInt(1000)));
     }
+
+    /**
+     * An open subscription to the events.
+     *
+     * <p>The events are sent only while the subscriber is {@linkplain
+     * ServerCallStreamObserver#isReady() ready} to receive them. Once it is not, the subscription
+     * stops and resumes from its cursor when the subscriber becomes ready again. Thus, a slow
+     * subscriber does not make the server buffer the events for it.
+     *
+     * <p>First, the subscription goes through the matching history in the order the events
+     * occurred. Then it goes through the events appended to the log after the history was read,
+     * in the order they were appended.
+     */
+    private final class LiveSubscription<T> implements SuppliesEventLog.Listener, Logging {
+
+        private final Subscription request;
+        private final ServerCallStreamObserver<T> call;
+        private final Function<ByteString, T> toMessage;
+
+        /**
+         * The serialized {@code subscription}, {@code hand_off}, and {@code epoch} fields of
+         * the sent events.
+         *
+         * <p>Is set when the subscription starts.
+         */
+        private @Nullable ByteString echo;
+
+        /**
+         * The number of the requests to send the events.
+         *
+         * <p>Only the thread which increments the counter from zero sends the events, so
+         * the events are never sent concurrently.
+         */
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean started;
+
+        /**
+         * The history events not sent yet.
+         *
+         * <p>Accessed only by the thread which sends the events.
+         */
+        private @Nullable Iterator<Entry> history;
+
+        /**
+         * The number of the last appended event sent or skipped by this subscription.
+         *
+         * <p>Accessed only by the thread which sends the events.
+         */
+        private long cursor;
+
+        private LiveSubscription(Subscription request,
+                                 ServerCallStreamObserver<T> call,
+                                 Function<ByteString, T> toMessage) {
+            this.request = request;
+            this.call = call;
+            this.toMessage = toMessage;
+        }
+
+        /**
+         * Starts sending the matching history up to the given event number and the events
+         * appended after it.
+         *
+         * <p>A resumed subscription continues the history of the broken one from the event it
+         * resumes after, or skips the history if that event was appended after the history.
+         * If the event is not known, e.g. it belongs to another epoch as it was sent before
+         * the producer restarted, the subscription starts over.
+         */
+        private void start(long handOff) {
+            EventType type = request.getEventType();
+            ResumePoint resumeAfter = request.getResumeAfter();
+            boolean resumes = request.hasResumeAfter()
+                    && resumeAfter.getEpoch() == epoch
+                    && resumeAfter.getSequence() <= handOff
+                    && resumeAfter.getHandOff() <= handOff;
+            if (!resumes) {
+                history = historicalEvents
+                        .since(type, request.getStartingFrom(), handOff)
+                        .iterator();
+                cursor = handOff;
+            } else if (resumeAfter.getSequence() > resumeAfter.getHandOff()) {
+                history = emptyIterator();
+                cursor = resumeAfter.getSequence();
+            } else {
+                history = historicalEvents
+                        .after(type, resumeAfter.getWhenOccurred(), resumeAfter.getSequence(),
+                               resumeAfter.getHandOff())
+                        .iterator();
+                cursor = resumeAfter.getHandOff();
+            }
+            echo = SuppliesEvent.newBuilder()
+                                .setSubscription(request)
+                                .setHandOff(cursor)
+                                .setEpoch(epoch)
+                                .build()
+                                .toByteString();
+            started = true;
+            drain();
+        }
+
+        /**
+         * Sends the appended events on the executor of the producer, so that the events are
+         * produced regardless of how many subscribers there are.
+         *
+         * <p>A task is submitted only if the subscription is not sending the events already.
+         * Thus, the executor never holds more than one task per subscription, however fast
+         * the events are appended.
+         */
+        @Override
+        public void onAppended() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::sendPending);
+            }
+        }
+
+        /**
+         * Sends the events while the subscriber is ready to receive them.
+         *
+         * <p>Is called when the subscription starts and when the subscriber becomes ready.
+         */
+        private void drain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                sendPending();
+            }
+        }
+
+        /**
+         * Sends the events until no more requests to send them are pending.
+         *
+         * <p>Is called only by the thread which incremented the number of the pending requests
+         * from zero.
+         */
+        private void sendPending() {
+            int missed = 1;
+            do {
+                if (started) {
+                    try {
+                        sendWhileReady();
+                    } catch (StatusRuntimeException e) {
+                        disconnected(e);
+                    }
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void sendWhileReady() {
+            Iterator<Entry> history = checkNotNull(this.history);
+            while (history.hasNext()) {
+                if (!canSend()) {
+                    return;
+                }
+                call.onNext(toMessage.apply(echoSubscription(history.next())));
+            }
+            while (canSend()) {
+                Entry entry = historicalEvents.appended(cursor + 1);
+                if (entry == null) {
+                    return;
+                }
+                cursor = entry.sequence();
+                if (matches(entry)) {
+                    call.onNext(toMessage.apply(echoSubscription(entry)));
+                }
+            }
+        }
+
+        private boolean canSend() {
+            return !call.isCancelled() && call.isReady();
+        }
+
+        private boolean matches(Entry entry) {
+            EventType type = request.getEventType();
+            return (type == ALL || type == entry.type())
+                    && compare(entry.event().getWhenOccurred(), request.getStartingFrom()) >= 0;
+        }
+
+        /**
+         * Obtains the serialized event with the {@code subscription} field set.
+         *
+         * <p>The bytes of the event are not copied.
+         */
+        private ByteString echoSubscription(Entry entry) {
+            return entry.serialized()
+                        .concat(checkNotNull(echo));
+        }
+
+        private void disconnected(StatusRuntimeException e) {
+            historicalEvents.unfollow(this);
+            _fine().withCause(e)
+                   .log("Supplies event subscriber disconnected.");
+        }
+    }
+
+    /**
+     * Passes the {@code SuppliesEvent} messages in the serialized form.
+     *
+     * <p>Is also used by the clients which receive the events as bytes in the tests and
+     * the benchmarks.
+     */
+    static final class SerializedEventMarshaller implements Marshaller<ByteString> {
+
+        @Override
+        public InputStream stream(ByteString value) {
+            return value.newInput();
+        }
+
+        @Override
+        public ByteString parse(InputStream stream) {
+            try {
+                return ByteString.readFrom(stream);
+            } catch (IOException e) {
+                throw Status.INTERNAL
+                        .withDescription("Unable to read a supplies event.")
+                        .withCause(e)
+                        .asRuntimeException();
+            }
+        }
+    }
 // #docfragment "SuppliesEventProducer"
 }
 // #enddocfragment "SuppliesEventProducer"
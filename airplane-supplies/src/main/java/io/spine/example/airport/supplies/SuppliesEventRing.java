@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.supplies;
+
+import io.spine.example.airport.supplies.SuppliesEventLog.Entry;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A fixed-size ring of the latest entries appended to the {@link SuppliesEventLog}.
+ *
+ * <p>The ring is a lookup cache in front of the log, not a separate store. Every entry in
+ * the ring is also kept by the log, which holds all the events for replaying the history and
+ * resuming the subscriptions. The ring only lets the readers which keep up with the log find
+ * the new entries by an array index instead of a lookup in the log.
+ *
+ * <p>The ring has a single writer and any number of readers. Each reader tracks the number of
+ * the next entry it reads. The writer never waits for the readers: once it laps a slow reader,
+ * the entries the reader has not read yet are overwritten, and the reader has to find them in
+ * the log.
+ *
+ * <p>Neither the writer nor the readers take locks.
+ */
+final class SuppliesEventRing {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    /**
+     * Creates a new ring.
+     *
+     * @param capacity
+     *         the number of the latest entries kept in the ring; must be a power of two
+     */
+    SuppliesEventRing(int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                      "The ring capacity must be a power of two, but was %s.", capacity);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Puts the given entry into the ring in place of the entry appended {@code capacity} entries
+     * earlier.
+     *
+     * <p>Must be called by one thread at a time, in the order of the entry numbers.
+     */
+    void publish(Entry entry) {
+        checkNotNull(entry);
+        slots.set(slotOf(entry.sequence()), entry);
+    }
+
+    /**
+     * Obtains the entry with the given number.
+     *
+     * @return the entry or {@code null} if the entry is not published yet or is already
+     *         overwritten
+     */
+    @Nullable Entry get(long sequence) {
+        Entry entry = slots.get(slotOf(sequence));
+        return entry != null && entry.sequence() == sequence
+               ? entry
+               : null;
+    }
+
+    private int slotOf(long sequence) {
+        return (int) sequence & mask;
+    }
+}
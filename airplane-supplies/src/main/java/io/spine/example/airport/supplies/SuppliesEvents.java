@@ -44,23 +44,25 @@ final class SuppliesEvents {
      */
     private SuppliesEvents() {}
 
-    static boolean matches(SuppliesEvent event, EventType type) {
+    /**
+     * Obtains the type of the given event by the type of its payload.
+     *
+     * @return the type of the event or {@code UNRECOGNIZED} if the payload is of
+     *         an unknown type
+     */
+    static EventType typeOf(SuppliesEvent event) {
         checkNotNull(event);
-        checkNotNull(type);
 
         TypeUrl url = TypeUrl.ofEnclosed(event.getPayload());
-        switch (type) {
-            case PLANE_FUELED:
-                return url.equals(PLANE_FUELED_TYPE);
-            case ANTI_FROSTING_CHECK_COMPLETE:
-                return url.equals(ANTI_FROSTING_CHECK_COMPLETE_TYPE);
-            case PREFLIGHT_CHECK_COMPLETE:
-                return url.equals(PREFLIGHT_CHECK_COMPLETE_TYPE);
-            case UNRECOGNIZED:
-                return false;
-            case ALL:
-            default:
-                return true;
+        if (url.equals(PLANE_FUELED_TYPE)) {
+            return EventType.PLANE_FUELED;
+        }
+        if (url.equals(ANTI_FROSTING_CHECK_COMPLETE_TYPE)) {
+            return EventType.ANTI_FROSTING_CHECK_COMPLETE;
+        }
+        if (url.equals(PREFLIGHT_CHECK_COMPLETE_TYPE)) {
+            return EventType.PREFLIGHT_CHECK_COMPLETE;
         }
+        return EventType.UNRECOGNIZED;
     }
 }
@@ -26,16 +26,28 @@
 
 package io.spine.example.airport.supplies;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 
 final class SuppliesService {
 
     private static final int PORT = 4545;
 
+    private static final String PRODUCTION_PERIOD_PROPERTY = "supplies.productionPeriod";
+    private static final Duration DEFAULT_PRODUCTION_PERIOD = Duration.ofSeconds(30);
+
+    private static final String FAN_OUT_THREADS_PROPERTY = "supplies.fanOutThreads";
+
     /**
      * Prevents the utility class instantiation.
      */
@@ -46,10 +58,22 @@ final class SuppliesService {
         startEventProducer().awaitTermination();
     }
 
+    /**
+     * Starts the gRPC server which streams the supplies events to the subscribers.
+     *
+     * <p>The events of a new plane are produced once per the period set by
+     * the {@code supplies.productionPeriod} property in the ISO-8601 duration format.
+     * By default, the events are produced every 30 seconds.
+     *
+     * <p>The newly produced events are sent to the subscribers on a dedicated pool of
+     * the {@code supplies.fanOutThreads} threads, one per available processor by default.
+     */
     private static Server startEventProducer() {
+        SuppliesEventProducer producer = new SuppliesEventProducer(fanOutExecutor());
+        producer.startProducing(newSingleThreadScheduledExecutor(), productionPeriod());
         Server server = ServerBuilder
                 .forPort(PORT)
-                .addService(new SuppliesEventProducer())
+                .addService(producer)
                 .build();
         try {
             server.start();
@@ -58,4 +82,28 @@ final class SuppliesService {
         }
         return server;
     }
+
+    /**
+     * Creates the executor which sends the newly produced events to the subscribers.
+     *
+     * <p>The number of the threads is fixed, so that a burst of events does not spawn threads
+     * or compete with the other users of the common pool. The queue of the executor does not
+     * grow past the number of the subscribers, as each of them submits one task at a time.
+     */
+    private static ExecutorService fanOutExecutor() {
+        int threads = Integer.getInteger(FAN_OUT_THREADS_PROPERTY,
+                                         Runtime.getRuntime().availableProcessors());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("supplies-fan-out-%d")
+                .setDaemon(true)
+                .build();
+        return newFixedThreadPool(threads, threadFactory);
+    }
+
+    private static Duration productionPeriod() {
+        String period = System.getProperty(PRODUCTION_PERIOD_PROPERTY);
+        return period == null
+               ? DEFAULT_PRODUCTION_PERIOD
+               : Duration.parse(period);
+    }
 }
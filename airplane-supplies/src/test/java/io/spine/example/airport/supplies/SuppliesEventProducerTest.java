@@ -0,0 +1,284 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.supplies;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.spine.example.airport.supplies.SuppliesEventProducer.SerializedEventMarshaller;
+import io.spine.protobuf.AnyPacker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.google.protobuf.util.Timestamps.fromMillis;
+import static io.spine.example.airport.supplies.SuppliesEventProducerGrpc.getSubscribeMethod;
+import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("`SuppliesEventProducer` should")
+class SuppliesEventProducerTest {
+
+    private static final int HISTORY_EVENTS = 1_000;
+    private static final int LIVE_EVENTS = 5_000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The number of the events the server passed to the transport.
+     */
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private ThreadPoolExecutor fanOut;
+    private SuppliesEventProducer producer;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        fanOut = new ThreadPoolExecutor(2, 2, 0, MILLISECONDS, new LinkedBlockingQueue<>());
+        producer = new SuppliesEventProducer(fanOut);
+        server = InProcessServerBuilder
+                .forName(name)
+                .addService(ServerInterceptors.intercept(producer, new SentMessageCounter()))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder
+                .forName(name)
+                .build();
+    }
+
+    @AfterEach
+    void stopServer() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        fanOut.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("send the events to a slow subscriber only as fast as it requests them")
+    void sendOnlyRequestedEvents() {
+        produce(HISTORY_EVENTS);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        subscriber.subscribe();
+        subscriber.request(1);
+        await(() -> subscriber.received() == 1);
+
+        int maxQueuedTasks = 0;
+        for (int i = 0; i < LIVE_EVENTS; i++) {
+            producer.produce(planeFueled(HISTORY_EVENTS + i));
+            maxQueuedTasks = Math.max(maxQueuedTasks, fanOut.getQueue().size());
+        }
+        await(this::fanOutIdle);
+
+        assertEquals(1, sent.get(),
+                     "The events must not be sent until the subscriber requests them.");
+        assertTrue(maxQueuedTasks <= 1,
+                   "A subscriber must have at most one pending task, but had " + maxQueuedTasks);
+    }
+
+    @Test
+    @DisplayName("deliver each event once to a subscriber which falls behind and catches up")
+    void deliverEachEventOnce() {
+        produce(HISTORY_EVENTS);
+        SlowSubscriber subscriber = new SlowSubscriber();
+        subscriber.subscribe();
+        produce(LIVE_EVENTS);
+        await(this::fanOutIdle);
+
+        subscriber.readOneByOne();
+        int total = HISTORY_EVENTS + LIVE_EVENTS;
+        await(() -> subscriber.received() >= total);
+        await(this::fanOutIdle);
+
+        List<Long> sequences = subscriber.sequences();
+        assertEquals(total, sequences.size());
+        Set<Long> expected = new HashSet<>();
+        for (long sequence = 1; sequence <= total; sequence++) {
+            expected.add(sequence);
+        }
+        assertEquals(expected, new HashSet<>(sequences));
+        assertEquals(total, sent.get());
+    }
+
+    private void produce(int count) {
+        for (int i = 0; i < count; i++) {
+            producer.produce(planeFueled(i));
+        }
+    }
+
+    private boolean fanOutIdle() {
+        return fanOut.getActiveCount() == 0 && fanOut.getQueue().isEmpty();
+    }
+
+    /**
+     * Waits until the given condition holds and fails if it does not hold in time.
+     */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            sleep();
+        }
+        assertTrue(condition.getAsBoolean(), "The condition did not hold in " + TIMEOUT + '.');
+    }
+
+    private static void sleep() {
+        try {
+            MILLISECONDS.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SuppliesEvent planeFueled(long whenOccurred) {
+        PlaneId id = PlaneId
+                .newBuilder()
+                .setValue(UUID.randomUUID().toString())
+                .build();
+        PlaneFueled event = PlaneFueled
+                .newBuilder()
+                .setPlaneId(id)
+                .setFuelMass(500)
+                .build();
+        return SuppliesEvent
+                .newBuilder()
+                .setPayload(AnyPacker.pack(event))
+                .setWhenOccurred(fromMillis(whenOccurred))
+                .build();
+    }
+
+    /**
+     * Counts the messages the server sends.
+     */
+    private final class SentMessageCounter implements ServerInterceptor {
+
+        @Override
+        public <R, S> ServerCall.Listener<R> interceptCall(ServerCall<R, S> call,
+                                                          Metadata headers,
+                                                          ServerCallHandler<R, S> next) {
+            ServerCall<R, S> counting = new SimpleForwardingServerCall<R, S>(call) {
+                @Override
+                public void sendMessage(S message) {
+                    sent.incrementAndGet();
+                    super.sendMessage(message);
+                }
+            };
+            return next.startCall(counting, headers);
+        }
+    }
+
+    /**
+     * A subscriber which receives the events only when it explicitly requests them.
+     */
+    private final class SlowSubscriber extends ClientCall.Listener<ByteString> {
+
+        private final ClientCall<Subscription, ByteString> call =
+                channel.newCall(subscribeMethod(), CallOptions.DEFAULT);
+        private final List<Long> sequences = synchronizedList(new ArrayList<>());
+        private volatile boolean readingOneByOne;
+
+        private void subscribe() {
+            Subscription subscription = Subscription
+                    .newBuilder()
+                    .setUuid(UUID.randomUUID().toString())
+                    .build();
+            call.start(this, new Metadata());
+            call.sendMessage(subscription);
+            call.halfClose();
+        }
+
+        private void request(int events) {
+            call.request(events);
+        }
+
+        /**
+         * Starts requesting the next event each time an event is received.
+         */
+        private void readOneByOne() {
+            readingOneByOne = true;
+            call.request(1);
+        }
+
+        @Override
+        public void onMessage(ByteString message) {
+            try {
+                sequences.add(SuppliesEvent.parseFrom(message)
+                                           .getSequence());
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            if (readingOneByOne) {
+                call.request(1);
+            }
+        }
+
+        private int received() {
+            return sequences.size();
+        }
+
+        private List<Long> sequences() {
+            synchronized (sequences) {
+                return new ArrayList<>(sequences);
+            }
+        }
+
+        private MethodDescriptor<Subscription, ByteString> subscribeMethod() {
+            MethodDescriptor<Subscription, SuppliesEvent> generated = getSubscribeMethod();
+            return generated
+                    .toBuilder(generated.getRequestMarshaller(), new SerializedEventMarshaller())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.http;
+
+import com.google.common.base.Splitter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compresses the response bodies with gzip if the client accepts it.
+ *
+ * <p>The body is compressed only if it is larger than the configured minimum size. Smaller
+ * bodies are sent as is, since the gzip framing would not pay off for them. To find this
+ * out without building the whole body in memory, up to the minimum size of the body is
+ * buffered before the decision is made.
+ *
+ * <p>Is shared by the HTTP services of the {@code Weather} and {@code Security Checks} systems.
+ */
+public final class ResponseCompression {
+
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String VARY_HEADER = "Vary";
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults();
+    private static final Splitter PARAMETER_SPLITTER = Splitter.on(';').trimResults();
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q=0(\\.0{0,3})?");
+
+    private final int minSize;
+    private final int level;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param minSize
+     *         the size of the body in bytes starting from which it is compressed
+     * @param level
+     *         the compression level from {@code 1} (fastest) to {@code 9} (smallest)
+     */
+    public ResponseCompression(int minSize, int level) {
+        checkArgument(minSize >= 0, "Minimum size must not be negative.");
+        checkArgument(level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION,
+                      "Compression level must be from %s to %s.",
+                      Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION);
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    /**
+     * Obtains the stream to write the response body into.
+     *
+     * <p>The returned stream must be closed once the body is written. Closing the stream
+     * completes the body, but does not close the underlying stream of the response.
+     */
+    public OutputStream bodyOf(Request request, Response response) throws IOException {
+        checkNotNull(request);
+        checkNotNull(response);
+        response.header(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        OutputStream out = response.raw()
+                                   .getOutputStream();
+        if (!acceptsGzip(request.headers(ACCEPT_ENCODING_HEADER))) {
+            return new UncompressedBody(out);
+        }
+        return new DeferredGzipBody(out, response);
+    }
+
+    /**
+     * Checks if the given {@code Accept-Encoding} header allows gzip.
+     *
+     * <p>The coding is considered acceptable if it is listed without the {@code q=0} parameter.
+     */
+    private static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : LIST_SPLITTER.split(acceptEncoding)) {
+            List<String> parts = PARAMETER_SPLITTER.splitToList(coding);
+            if (GZIP.equalsIgnoreCase(parts.get(0))) {
+                return !isRefused(parts);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRefused(List<String> codingParts) {
+        for (String parameter : codingParts.subList(1, codingParts.size())) {
+            if (ZERO_QUALITY.matcher(parameter.replace(" ", "")).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A body which is written into the response as is.
+     */
+    private static final class UncompressedBody extends OutputStream {
+
+        private final OutputStream out;
+
+        private UncompressedBody(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * A body which is buffered until it reaches the minimum size and then compressed.
+     */
+    private final class DeferredGzipBody extends OutputStream {
+
+        private final OutputStream out;
+        private final Response response;
+        private final byte[] pending = new byte[minSize];
+        private int pendingSize;
+        private @Nullable LeveledGzipStream gzip;
+        private boolean closed;
+
+        private DeferredGzipBody(OutputStream out, Response response) {
+            this.out = out;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (gzip == null) {
+                if (pendingSize + len < minSize) {
+                    System.arraycopy(b, off, pending, pendingSize, len);
+                    pendingSize += len;
+                    return;
+                }
+                startCompressing();
+            }
+            checkNotNull(gzip).write(b, off, len);
+        }
+
+        private void startCompressing() throws IOException {
+            response.header(CONTENT_ENCODING_HEADER, GZIP);
+            LeveledGzipStream stream = new LeveledGzipStream(out, level);
+            stream.write(pending, 0, pendingSize);
+            gzip = stream;
+        }
+
+        /**
+         * Does nothing, as a flush would commit the response before the encoding is chosen.
+         *
+         * <p>The compressed data is flushed when the stream is closed.
+         */
+        @Override
+        public void flush() {
+            // Do nothing.
+        }
+
+        /**
+         * Completes the body.
+         *
+         * <p>The gzip stream is finished rather than closed, so that the response stream stays
+         * open. Its deflater is released explicitly, as only closing the gzip stream would
+         * release it.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (gzip == null) {
+                out.write(pending, 0, pendingSize);
+            } else {
+                try {
+                    gzip.finish();
+                } finally {
+                    gzip.end();
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * A gzip stream with a custom compression level.
+     *
+     * <p>Is also used by the {@code CompressionBenchmark} of the {@code weather} module.
+     */
+    public static final class LeveledGzipStream extends GZIPOutputStream {
+
+        /**
+         * Creates a new stream which writes the compressed data into the given stream.
+         *
+         * @param out
+         *         the stream to write the compressed data into
+         * @param level
+         *         the compression level from {@code 1} (fastest) to {@code 9} (smallest)
+         */
+        public LeveledGzipStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+
+        /**
+         * Releases the native memory of the deflater.
+         *
+         * <p>The stream must not be written to afterwards.
+         */
+        private void end() {
+            def.end();
+        }
+    }
+}
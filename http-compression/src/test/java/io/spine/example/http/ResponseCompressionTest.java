@@ -0,0 +1,283 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.http;
+
+import com.google.common.io.ByteStreams;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("`ResponseCompression` should")
+class ResponseCompressionTest {
+
+    private static final int MIN_SIZE = 1024;
+
+    private final ResponseCompression compression = new ResponseCompression(MIN_SIZE, 6);
+    private StubResponse response;
+
+    @BeforeEach
+    void createResponse() {
+        response = new StubResponse();
+    }
+
+    @Test
+    @DisplayName("compress a large body if the client accepts gzip")
+    void compressLargeBody() throws IOException {
+        byte[] body = body(10 * MIN_SIZE);
+
+        write(body, "gzip, deflate");
+
+        assertEquals("gzip", response.header("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.header("Vary"));
+        byte[] sent = response.sentBytes();
+        assertTrue(sent.length < body.length, "The body must shrink.");
+        assertArrayEquals(body, gunzip(sent));
+    }
+
+    @Test
+    @DisplayName("compress a body written in small parts")
+    void compressBodyInParts() throws IOException {
+        byte[] body = body(3 * MIN_SIZE);
+
+        try (OutputStream out = compression.bodyOf(new StubRequest("gzip"), response)) {
+            for (byte b : body) {
+                out.write(b);
+            }
+        }
+
+        assertEquals("gzip", response.header("Content-Encoding"));
+        assertArrayEquals(body, gunzip(response.sentBytes()));
+    }
+
+    @Test
+    @DisplayName("send a body smaller than the minimum size as is")
+    void sendSmallBodyAsIs() throws IOException {
+        byte[] body = body(MIN_SIZE - 1);
+
+        write(body, "gzip");
+
+        assertFalse(response.hasHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.header("Vary"));
+        assertArrayEquals(body, response.sentBytes());
+    }
+
+    @Test
+    @DisplayName("send a large body as is if the client does not accept gzip")
+    void sendAsIsIfNotAccepted() throws IOException {
+        byte[] body = body(10 * MIN_SIZE);
+        for (String acceptEncoding : new String[]{"", "deflate, br", "gzip;q=0", "gzip; q=0.000"}) {
+            response = new StubResponse();
+
+            write(body, acceptEncoding);
+
+            assertFalse(response.hasHeader("Content-Encoding"), acceptEncoding);
+            assertArrayEquals(body, response.sentBytes(), acceptEncoding);
+        }
+    }
+
+    @Test
+    @DisplayName("compress a large body if gzip is listed among other codings")
+    void compressIfAccepted() throws IOException {
+        byte[] body = body(10 * MIN_SIZE);
+        for (String acceptEncoding : new String[]{"deflate;q=1.0, gzip;q=0.5", "br , gzip"}) {
+            response = new StubResponse();
+
+            write(body, acceptEncoding);
+
+            assertEquals("gzip", response.header("Content-Encoding"), acceptEncoding);
+            assertArrayEquals(body, gunzip(response.sentBytes()), acceptEncoding);
+        }
+    }
+
+    @Test
+    @DisplayName("send a large body as is if the request has no `Accept-Encoding` header")
+    void sendAsIsWithoutHeader() throws IOException {
+        byte[] body = body(10 * MIN_SIZE);
+
+        write(body, null);
+
+        assertFalse(response.hasHeader("Content-Encoding"));
+        assertArrayEquals(body, response.sentBytes());
+    }
+
+    @Test
+    @DisplayName("complete the body once if closed twice")
+    void closeTwice() throws IOException {
+        byte[] body = body(10 * MIN_SIZE);
+        OutputStream out = compression.bodyOf(new StubRequest("gzip"), response);
+        out.write(body);
+        out.close();
+        int sent = response.sentBytes().length;
+
+        out.close();
+
+        assertEquals(sent, response.sentBytes().length);
+        assertArrayEquals(body, gunzip(response.sentBytes()));
+    }
+
+    @Test
+    @DisplayName("reject an out-of-range level or a negative minimum size")
+    void rejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCompression(-1, 6));
+    }
+
+    private void write(byte[] body, @Nullable String acceptEncoding) throws IOException {
+        try (OutputStream out = compression.bodyOf(new StubRequest(acceptEncoding), response)) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Creates a repetitive body of the given size, which compresses well.
+     */
+    private static byte[] body(int size) {
+        byte[] body = new byte[size];
+        byte[] pattern = "{\"windSpeed\":4.2,\"temperature\":-1.5},".getBytes(UTF_8);
+        for (int i = 0; i < size; i++) {
+            body[i] = pattern[i % pattern.length];
+        }
+        return body;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * A request with the given {@code Accept-Encoding} header.
+     */
+    private static final class StubRequest extends Request {
+
+        private final @Nullable String acceptEncoding;
+
+        private StubRequest(@Nullable String acceptEncoding) {
+            super();
+            this.acceptEncoding = acceptEncoding;
+        }
+
+        @Override
+        public @Nullable String headers(String header) {
+            return "Accept-Encoding".equals(header) ? acceptEncoding : null;
+        }
+    }
+
+    /**
+     * A response which collects the headers and the body in memory.
+     */
+    private static final class StubResponse extends Response {
+
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final HttpServletResponse raw = (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    if ("getOutputStream".equals(method.getName())) {
+                        return new BodyStream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        private StubResponse() {
+            super();
+        }
+
+        @Override
+        public void header(String header, String value) {
+            headers.put(header, value);
+        }
+
+        @Override
+        public HttpServletResponse raw() {
+            return raw;
+        }
+
+        private @Nullable String header(String name) {
+            return headers.get(name);
+        }
+
+        private boolean hasHeader(String name) {
+            return headers.containsKey(name);
+        }
+
+        private byte[] sentBytes() {
+            return body.toByteArray();
+        }
+
+        /**
+         * The output stream of the servlet response which writes into the body.
+         */
+        private final class BodyStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("The stream is blocking.");
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import io.spine.example.http.ResponseCompression.LeveledGzipStream;
+import io.spine.example.tsa.PassengerRecord.Dictionaries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of compressing a typical {@code /passenger} response with gzip.
+ *
+ * <p>The response is a page of 1000 passengers with the fields requested by
+ * the {@code Takeoffs and Landings} system. The benchmark reports the time to compress
+ * it at the given level, and prints the size of the response before and after
+ * the compression, which is the number of bytes on the wire.
+ *
+ * <p>The results of this benchmark are the reference figures for choosing
+ * the {@code tsa.gzip.level}. Run it with {@code ./gradlew :security-checks:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassengerCompressionBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final String CLIENT_FIELDS = "id,flightNumber,status,encounteredAt,version";
+
+    @Param({"json", "proto"})
+    private String format;
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    private byte[] response;
+    private long compressedSize;
+
+    @Setup
+    public void serializePage() throws IOException {
+        SecurityGate gate = new SecurityGate(new Random(42), FlightDistribution.parse("42"), 42);
+        Dictionaries dictionaries = new Dictionaries();
+        ImmutableList.Builder<Passenger> page = ImmutableList.builder();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            PassengerRecord record =
+                    PassengerRecord.encode(gate.registerNext(), dictionaries, 1, i + 1);
+            page.add(record.decode(dictionaries));
+        }
+        Passengers passengers = new Passengers(page.build());
+        PassengerProjection projection = PassengerProjection.parse(CLIENT_FIELDS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if ("proto".equals(format)) {
+            passengers.writeProtoTo(out, projection);
+        } else {
+            passengers.writeJsonTo(out, projection);
+        }
+        response = out.toByteArray();
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        CountingOutputStream wire = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try (OutputStream gzip = new LeveledGzipStream(wire, level)) {
+            gzip.write(response);
+        }
+        compressedSize = wire.getCount();
+        return compressedSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void reportSize() {
+        System.out.printf("%n%s page of %d passengers: %d bytes, %d bytes gzipped at level %d%n",
+                          format, PAGE_SIZE, response.length, compressedSize, level);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import io.spine.example.tsa.PassengerRecord.Dictionaries;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.Random;
+
+/**
+ * Reports the memory retained per passenger by the {@link PassengerRepository} records
+ * compared to the plain {@link Passenger}s.
+ *
+ * <p>The sizes are computed by JOL for the whole object graph, so the strings and
+ * the dictionaries shared by many passengers are accounted once.
+ *
+ * <p>The passengers produced by a {@link SecurityGate} share the name and the nationality
+ * strings, which are constants. The passengers read from the journal or from a request own
+ * a copy of every string, so their footprint is reported separately. The records are encoded
+ * from such passengers.
+ */
+public final class PassengerFootprint {
+
+    private static final int COUNT = 100_000;
+
+    /** Prevents instantiation of this utility class. */
+    private PassengerFootprint() {
+    }
+
+    public static void main(String[] args) {
+        SecurityGate gate = new SecurityGate(new Random(42), FlightDistribution.parse("42"), 42);
+        Passenger[] passengers = new Passenger[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            passengers[i] = gate.registerNext();
+        }
+        Passenger[] received = new Passenger[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            received[i] = withOwnStrings(passengers[i]);
+        }
+        Dictionaries dictionaries = new Dictionaries();
+        PassengerRecord[] records = new PassengerRecord[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            records[i] = PassengerRecord.encode(received[i], dictionaries, 1, i + 1);
+        }
+        long passengerBytes = retainedSize(passengers);
+        long receivedBytes = retainedSize(received);
+        long recordBytes = retainedSize(records, dictionaries);
+        System.out.printf("VM: %s%n", VM.current().details());
+        System.out.printf("Passenger, generated: %d bytes per passenger%n", passengerBytes / COUNT);
+        System.out.printf("Passenger, received:  %d bytes per passenger%n", receivedBytes / COUNT);
+        System.out.printf("PassengerRecord:      %d bytes per passenger%n", recordBytes / COUNT);
+    }
+
+    /**
+     * Copies the given passenger so that it does not share any strings with other passengers.
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified") // The copies are intended.
+    private static Passenger withOwnStrings(Passenger passenger) {
+        return Passenger
+                .newBuilder()
+                .setId(new String(passenger.id()))
+                .setFullName(new String(passenger.fullName()))
+                .setPassportNumber(new String(passenger.passportNumber()))
+                .setNationality(new String(passenger.nationality()))
+                .setPassportCountry(new String(passenger.passportCountry()))
+                .setFlightNumber(new String(passenger.flightNumber()))
+                .setStatus(passenger.status())
+                .setEncounteredAt(passenger.encounteredAt())
+                .build();
+    }
+
+    /**
+     * Obtains the size of the object graph reachable from the given array and the shared
+     * objects, excluding the array itself.
+     */
+    private static long retainedSize(Object[] items, Object... shared) {
+        Object[] roots = new Object[shared.length + 1];
+        roots[0] = items;
+        System.arraycopy(shared, 0, roots, 1, shared.length);
+        return GraphLayout.parseInstance(roots)
+                          .totalSize() - VM.current().sizeOf(items);
+    }
+}
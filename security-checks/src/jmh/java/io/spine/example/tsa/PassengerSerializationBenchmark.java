@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.protobuf.CodedInputStream;
+import io.spine.example.tsa.PassengerRecord.Dictionaries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the serialization of the passengers served by {@code /passenger}.
+ *
+ * <p>All the benchmarks serialize or parse the same page of stored passengers and report
+ * the time and, with the GC profiler, the bytes allocated ({@code gc.alloc.rate.norm})
+ * per passenger.
+ *
+ * <p>The pages are written either with all the fields or with the fields requested by
+ * the {@code Takeoffs and Landings} system. The parse benchmarks read a page with all
+ * the fields: the JSON with Gson into a plain class, and the Protobuf as length-delimited
+ * {@code TsaPassenger} messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassengerSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final String CLIENT_FIELDS = "id,flightNumber,status,encounteredAt,version";
+
+    private final OutputStream out = ByteStreams.nullOutputStream();
+    private final Gson gson = new Gson();
+    private final PassengerProjection clientFields = PassengerProjection.parse(CLIENT_FIELDS);
+    private Passengers passengers;
+    private byte[] json;
+    private byte[] proto;
+
+    @Setup
+    public void registerPassengers() throws IOException {
+        SecurityGate gate = new SecurityGate(new Random(42), FlightDistribution.parse("42"), 42);
+        Dictionaries dictionaries = new Dictionaries();
+        ImmutableList.Builder<Passenger> page = ImmutableList.builder();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            PassengerRecord record =
+                    PassengerRecord.encode(gate.registerNext(), dictionaries, 1, i + 1);
+            page.add(record.decode(dictionaries));
+        }
+        passengers = new Passengers(page.build());
+        ByteArrayOutputStream jsonBytes = new ByteArrayOutputStream();
+        passengers.writeJsonTo(jsonBytes, PassengerProjection.all());
+        json = jsonBytes.toByteArray();
+        ByteArrayOutputStream protoBytes = new ByteArrayOutputStream();
+        passengers.writeProtoTo(protoBytes, PassengerProjection.all());
+        proto = protoBytes.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void writeJson() throws IOException {
+        passengers.writeJsonTo(out, PassengerProjection.all());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void writeJsonClientFields() throws IOException {
+        passengers.writeJsonTo(out, clientFields);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void writeProto() throws IOException {
+        passengers.writeProtoTo(out, PassengerProjection.all());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void writeProtoClientFields() throws IOException {
+        passengers.writeProtoTo(out, clientFields);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<ParsedPassenger> parseJson() {
+        InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(json), UTF_8);
+        return gson.fromJson(reader, ParsedPage.class).passengers;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public void parseProto(Blackhole blackhole) throws IOException {
+        InputStream in = new ByteArrayInputStream(proto);
+        int firstByte = in.read();
+        while (firstByte != -1) {
+            int size = CodedInputStream.readRawVarint32(firstByte, in);
+            blackhole.consume(PassengersProtoReader.parseFrom(ByteStreams.limit(in, size)));
+            firstByte = in.read();
+        }
+    }
+
+    /**
+     * The JSON page as seen by a client.
+     */
+    private static final class ParsedPage {
+
+        private List<ParsedPassenger> passengers;
+    }
+
+    /**
+     * A passenger as seen by a client.
+     */
+    public static final class ParsedPassenger {
+
+        private String id;
+        private String fullName;
+        private String passportNumber;
+        private String nationality;
+        private String passportCountry;
+        private String flightNumber;
+        private String status;
+        private ParsedTimestamp encounteredAt;
+        private long version;
+        private long offset;
+    }
+
+    /**
+     * The time a passenger was encountered as seen by a client.
+     */
+    private static final class ParsedTimestamp {
+
+        private long seconds;
+        private int nanos;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.flogger.FluentLogger;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.flogger.FluentLogger.forEnclosingClass;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drives a number of {@link SecurityGate} lanes at the given total passenger rate.
+ *
+ * <p>All the lanes share one scheduler. Each lane is run by a periodic task and takes
+ * an equal share of the passengers. If a lane has to register more than one passenger per
+ * {@linkplain #MIN_TICK_NANOS millisecond}, a task registers several passengers per run, so
+ * that the scheduler overhead does not grow with the rate.
+ *
+ * <p>The registered passengers are stored into the repository, and the subscribers of
+ * the feed are notified once per run.
+ */
+final class CheckpointSimulation {
+
+    private static final FluentLogger log = forEnclosingClass();
+
+    private static final long MIN_TICK_NANOS = MILLISECONDS.toNanos(1);
+
+    private final ScheduledExecutorService scheduler;
+    private final double passengersPerSecond;
+
+    /**
+     * Creates a new simulation.
+     *
+     * @param scheduler
+     *         the scheduler to run the lanes on
+     * @param passengersPerSecond
+     *         the number of passengers all the lanes register per second in total
+     */
+    CheckpointSimulation(ScheduledExecutorService scheduler, double passengersPerSecond) {
+        checkArgument(passengersPerSecond > 0, "Passenger rate must be positive.");
+        this.scheduler = checkNotNull(scheduler);
+        this.passengersPerSecond = passengersPerSecond;
+    }
+
+    /**
+     * Starts registering passengers on the given lanes.
+     */
+    void start(List<SecurityGate> lanes, PassengerRepository repository, PassengerFeed feed) {
+        checkNotNull(lanes);
+        checkArgument(!lanes.isEmpty(), "At least one lane is required.");
+        checkNotNull(repository);
+        checkNotNull(feed);
+        double perLane = passengersPerSecond / lanes.size();
+        long period = (long) (SECONDS.toNanos(1) / perLane);
+        long tick = Math.max(MIN_TICK_NANOS, period);
+        double passengersPerTick = perLane * tick / SECONDS.toNanos(1);
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = new Lane(i, lanes.get(i), repository, feed, passengersPerTick);
+            scheduler.scheduleAtFixedRate(lane, tick, tick, NANOSECONDS);
+        }
+    }
+
+    /**
+     * A periodic task which registers passengers on a single lane.
+     */
+    private static final class Lane implements Runnable {
+
+        private final int index;
+        private final SecurityGate gate;
+        private final PassengerRepository repository;
+        private final PassengerFeed feed;
+        private final double passengersPerTick;
+
+        /**
+         * The fraction of a passenger carried over from the previous runs.
+         */
+        private double credit;
+
+        private Lane(int index,
+                     SecurityGate gate,
+                     PassengerRepository repository,
+                     PassengerFeed feed,
+                     double passengersPerTick) {
+            this.index = index;
+            this.gate = gate;
+            this.repository = repository;
+            this.feed = feed;
+            this.passengersPerTick = passengersPerTick;
+        }
+
+        @Override
+        public void run() {
+            credit += passengersPerTick;
+            int passengers = (int) credit;
+            credit -= passengers;
+            if (passengers == 0) {
+                return;
+            }
+            try {
+                for (int i = 0; i < passengers; i++) {
+                    repository.store(gate.registerNext());
+                }
+                feed.passengersStored();
+            } catch (RuntimeException e) {
+                log.atSevere()
+                   .withCause(e)
+                   .log("Security lane #%d failed to register a passenger.", index);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A distribution of the passengers between flights.
+ *
+ * <p>Each flight has a weight. The probability of a passenger to be of a flight is
+ * proportional to the weight of the flight.
+ */
+final class FlightDistribution {
+
+    private static final Splitter FLIGHT_SPLITTER = Splitter.on(',')
+                                                            .trimResults()
+                                                            .omitEmptyStrings();
+    private static final Splitter WEIGHT_SPLITTER = Splitter.on(':')
+                                                            .trimResults();
+
+    private final ImmutableList<String> flights;
+
+    /**
+     * The cumulative weights of the flights.
+     */
+    private final double[] thresholds;
+
+    private FlightDistribution(ImmutableList<String> flights, double[] thresholds) {
+        this.flights = flights;
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Parses the distribution from a comma-separated list of flight numbers with optional
+     * weights, e.g. {@code PS101:5,LH202:3,42}.
+     *
+     * <p>A flight without a weight has the weight of one.
+     */
+    static FlightDistribution parse(String spec) {
+        checkNotNull(spec);
+        ImmutableList.Builder<String> flights = ImmutableList.builder();
+        List<String> entries = FLIGHT_SPLITTER.splitToList(spec);
+        checkArgument(!entries.isEmpty(), "At least one flight is required.");
+        double[] thresholds = new double[entries.size()];
+        double total = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            List<String> parts = WEIGHT_SPLITTER.splitToList(entries.get(i));
+            checkArgument(parts.size() <= 2, "Invalid flight weight `%s`.", entries.get(i));
+            double weight = parts.size() == 2
+                            ? Double.parseDouble(parts.get(1))
+                            : 1;
+            checkArgument(weight > 0, "Flight weight must be positive.");
+            flights.add(parts.get(0));
+            total += weight;
+            thresholds[i] = total;
+        }
+        return new FlightDistribution(flights.build(), thresholds);
+    }
+
+    /**
+     * Picks the flight of the next passenger using the given generator.
+     */
+    String next(Random rand) {
+        double total = thresholds[thresholds.length - 1];
+        double point = rand.nextDouble() * total;
+        int index = Arrays.binarySearch(thresholds, point);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            index++;
+        }
+        return flights.get(Math.min(index, flights.size() - 1));
+    }
+}
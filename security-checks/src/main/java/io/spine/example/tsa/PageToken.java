@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.example.tsa.PassengerBuckets.bucketOf;
+
+/**
+ * A position in the results of a passenger query after which the next page starts.
+ *
+ * <p>The passengers in the results are {@linkplain PassengerBuckets#ORDER ordered} by
+ * the minute they were encountered and then by their offset, so the position is the bucket and
+ * the offset of the last passenger of the previous page.
+ *
+ * <p>Clients receive the token in an opaque URL-safe form and pass it back unchanged.
+ */
+final class PageToken {
+
+    private static final int SIZE = 2 * Long.BYTES;
+
+    private final long bucket;
+    private final long offset;
+
+    private PageToken(long bucket, long offset) {
+        this.bucket = bucket;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates a token of the page which follows the given passenger.
+     */
+    static PageToken after(Passenger passenger) {
+        checkNotNull(passenger);
+        long encounteredAt = passenger.encounteredAt()
+                                      .toEpochMilli();
+        return new PageToken(bucketOf(encounteredAt), passenger.offset());
+    }
+
+    /**
+     * Restores the token from the {@linkplain #encode() encoded} form.
+     *
+     * @throws IllegalArgumentException
+     *         if the given string is not a valid token
+     */
+    static PageToken decode(String token) {
+        checkNotNull(token);
+        byte[] bytes = Base64.getUrlDecoder()
+                             .decode(token);
+        checkArgument(bytes.length == SIZE, "Invalid page token `%s`.", token);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long bucket = buffer.getLong();
+        long offset = buffer.getLong();
+        return new PageToken(bucket, offset);
+    }
+
+    /**
+     * Encodes the token into an opaque URL-safe string.
+     */
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE)
+                                      .putLong(bucket)
+                                      .putLong(offset);
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(buffer.array());
+    }
+
+    /**
+     * Obtains the start of the bucket of the last passenger of the previous page in
+     * epoch milliseconds.
+     */
+    long bucket() {
+        return bucket;
+    }
+
+    /**
+     * Obtains the offset of the last passenger of the previous page.
+     */
+    long offset() {
+        return offset;
+    }
+}
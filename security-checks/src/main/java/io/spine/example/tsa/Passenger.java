@@ -30,14 +30,17 @@ import com.google.common.base.Objects;
 import com.google.gson.Gson;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public final class Passenger {
 
+    private static final Gson gson = new Gson();
+
     private final String id;
     private final @Nullable String fullName;
     private final @Nullable String passportNumber;
@@ -46,6 +49,8 @@ public final class Passenger {
     private final @Nullable String flightNumber;
     private final Status status;
     private final Instant encounteredAt;
+    private final long version;
+    private final long offset;
 
     private Passenger(Builder builder) {
         this.id = builder.id;
@@ -56,6 +61,8 @@ public final class Passenger {
         this.flightNumber = builder.flightNumber;
         this.status = builder.status;
         this.encounteredAt = builder.encounteredAt;
+        this.version = builder.version;
+        this.offset = builder.offset;
     }
 
     public String id() {
@@ -90,8 +97,35 @@ public final class Passenger {
         return encounteredAt;
     }
 
+    /**
+     * Obtains the version of the passenger record.
+     *
+     * <p>The version grows by one with each change of the passenger stored in
+     * the {@link PassengerRepository}. Zero means the record has not been stored yet.
+     *
+     * <p>The version is assigned by the storage and is not a part of the passenger data, so it
+     * does not take part in {@link #equals(Object) equals()}.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Obtains the position of the passenger record among all the changes stored in
+     * the {@link PassengerRepository}.
+     *
+     * <p>Each stored change has a greater offset than the previous one. Zero means the record
+     * has not been stored yet.
+     *
+     * <p>Same as the {@linkplain #version() version}, the offset is the storage metadata and
+     * does not take part in {@link #equals(Object) equals()}.
+     */
+    public long offset() {
+        return offset;
+    }
+
     private String toJson() {
-        return new Gson().toJson(this);
+        return gson.toJson(this);
     }
 
     @Override
@@ -132,9 +166,17 @@ public final class Passenger {
         DENIED,
         DETAINED;
 
+        private static final Status[] options = values();
+
         public static Status random() {
-            Status[] options = Status.values();
-            Random rand = new SecureRandom();
+            return random(ThreadLocalRandom.current());
+        }
+
+        /**
+         * Picks a status using the given generator.
+         */
+        public static Status random(Random rand) {
+            checkNotNull(rand);
             int index = rand.nextInt(options.length);
             return options[index];
         }
@@ -157,9 +199,17 @@ public final class Passenger {
         Orsimer,
         Redguard;
 
+        private static final Nationality[] options = values();
+
         public static Nationality random() {
-            Nationality[] options = Nationality.values();
-            Random rand = new SecureRandom();
+            return random(ThreadLocalRandom.current());
+        }
+
+        /**
+         * Picks a nationality using the given generator.
+         */
+        public static Nationality random(Random rand) {
+            checkNotNull(rand);
             int index = rand.nextInt(options.length);
             return options[index];
         }
@@ -184,6 +234,8 @@ public final class Passenger {
         private String flightNumber;
         private Status status;
         private Instant encounteredAt;
+        private long version;
+        private long offset;
 
         public Builder setId(String id) {
             this.id = checkNotNull(id);
@@ -225,6 +277,18 @@ public final class Passenger {
             return this;
         }
 
+        public Builder setVersion(long version) {
+            checkArgument(version >= 0, "Version must not be negative.");
+            this.version = version;
+            return this;
+        }
+
+        public Builder setOffset(long offset) {
+            checkArgument(offset >= 0, "Offset must not be negative.");
+            this.offset = offset;
+            return this;
+        }
+
         /**
          * Prevents direct instantiation.
          */
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Passenger records grouped into per-minute buckets by the time the passengers were
+ * encountered.
+ *
+ * <p>A query reads only the buckets which overlap with the requested period. Within a bucket,
+ * the records are ordered by their {@linkplain PassengerRecord#offset() offsets}.
+ */
+final class PassengerBuckets {
+
+    private static final long BUCKET_MILLIS = MINUTES.toMillis(1);
+
+    /**
+     * The order of the records returned by the {@linkplain #between queries}.
+     */
+    static final Comparator<PassengerRecord> ORDER =
+            comparingLong((PassengerRecord r) -> bucketOf(r.encounteredAt()))
+                    .thenComparingLong(PassengerRecord::offset);
+
+    private final NavigableMap<Long, NavigableMap<Long, PassengerRecord>> buckets =
+            new ConcurrentSkipListMap<>();
+
+    void add(PassengerRecord record) {
+        buckets.computeIfAbsent(bucketOf(record.encounteredAt()),
+                                bucket -> new ConcurrentSkipListMap<>())
+               .put(record.offset(), record);
+    }
+
+    /**
+     * Removes the given record from its bucket.
+     */
+    void remove(PassengerRecord record) {
+        NavigableMap<Long, PassengerRecord> bucket = buckets.get(bucketOf(record.encounteredAt()));
+        if (bucket != null) {
+            bucket.remove(record.offset(), record);
+        }
+    }
+
+    /**
+     * Obtains the records of the passengers encountered after {@code since} and
+     * before {@code upto} in the {@linkplain #ORDER order} of the buckets and the offsets.
+     *
+     * @param after
+     *         the position of the last passenger of the previous page; {@code null} to start
+     *         from the first passenger
+     */
+    Stream<PassengerRecord> between(Instant since, Instant upto, @Nullable PageToken after) {
+        if (!since.isBefore(upto)) {
+            return Stream.empty();
+        }
+        long sinceMillis = since.toEpochMilli();
+        long uptoMillis = upto.toEpochMilli();
+        long from = bucketOf(sinceMillis);
+        if (after != null && after.bucket() > from) {
+            from = after.bucket();
+        }
+        return buckets.subMap(from, true, uptoMillis, false)
+                      .entrySet()
+                      .stream()
+                      .flatMap(bucket -> records(bucket, after))
+                      .filter(r -> r.encounteredAt() > sinceMillis
+                                && r.encounteredAt() < uptoMillis);
+    }
+
+    private static Stream<PassengerRecord>
+    records(Map.Entry<Long, NavigableMap<Long, PassengerRecord>> bucket,
+            @Nullable PageToken after) {
+        NavigableMap<Long, PassengerRecord> records = bucket.getValue();
+        if (after != null && after.bucket() == bucket.getKey()) {
+            records = records.tailMap(after.offset(), false);
+        }
+        return records.values()
+                      .stream();
+    }
+
+    /**
+     * Removes the buckets which contain only the passengers encountered before the given time.
+     */
+    void removeBefore(Instant time) {
+        buckets.headMap(bucketOf(time.toEpochMilli()))
+               .clear();
+    }
+
+    boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    /**
+     * Obtains the start of the bucket of the passengers encountered at the given time.
+     *
+     * @param epochMillis
+     *         the time in epoch milliseconds
+     * @return the start of the bucket in epoch milliseconds
+     */
+    static long bucketOf(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, BUCKET_MILLIS);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.spine.example.tsa.PassengerRepository.Changes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.flogger.FluentLogger.forEnclosingClass;
+import static io.grpc.MethodDescriptor.MethodType.SERVER_STREAMING;
+import static io.grpc.MethodDescriptor.generateFullMethodName;
+import static io.grpc.stub.ServerCalls.asyncServerStreamingCall;
+
+/**
+ * A gRPC service which streams the passenger status changes as they are stored.
+ *
+ * <p>Implements the following service:
+ * <pre>
+ * service PassengerFeed {
+ *     rpc Subscribe(PassengerFeedRequest) returns (stream TsaPassenger);
+ * }
+ * </pre>
+ *
+ * <p>A subscriber first receives the current records of the passengers changed after
+ * the {@linkplain PassengerFeedRequest#afterOffset() requested offset} and then each new change
+ * as soon as it is stored. A subscriber which remembers the {@linkplain Passenger#offset()
+ * offset} of the last received record may resume from it after a reconnect.
+ *
+ * <p>The records are sent only while the transport of the subscriber is ready. A slow
+ * subscriber falls behind instead of having the changes buffered for it. If a passenger
+ * changes several times in the meantime, the subscriber receives only the latest change.
+ * Neither are the tasks to send the records queued up for it: a subscription submits a task
+ * to the executor only if it is not sending the records already.
+ */
+final class PassengerFeed {
+
+    private static final FluentLogger log = forEnclosingClass();
+
+    static final String SERVICE_NAME = "spine.example.airport.security.PassengerFeed";
+    private static final int BATCH_SIZE = 256;
+
+    private final PassengerRepository repository;
+    private final Executor executor;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new feed.
+     *
+     * @param repository
+     *         the repository to read the passengers from
+     * @param executor
+     *         the executor to send the new passenger records on; should not be shared with
+     *         the unrelated tasks, so that a burst of records does not delay them
+     */
+    PassengerFeed(PassengerRepository repository, Executor executor) {
+        this.repository = checkNotNull(repository);
+        this.executor = checkNotNull(executor);
+    }
+
+    /**
+     * Creates the definition of the service to add to a gRPC server.
+     */
+    ServerServiceDefinition definition() {
+        MethodDescriptor<PassengerFeedRequest, Passenger> subscribe = MethodDescriptor
+                .<PassengerFeedRequest, Passenger>newBuilder()
+                .setType(SERVER_STREAMING)
+                .setFullMethodName(generateFullMethodName(SERVICE_NAME, "Subscribe"))
+                .setRequestMarshaller(new RequestMarshaller())
+                .setResponseMarshaller(new PassengerMarshaller())
+                .build();
+        return ServerServiceDefinition
+                .builder(SERVICE_NAME)
+                .addMethod(subscribe, asyncServerStreamingCall(this::subscribe))
+                .build();
+    }
+
+    /**
+     * Notifies the subscribers that new passenger records have been stored.
+     */
+    void passengersStored() {
+        for (Subscription subscription : subscriptions) {
+            subscription.onStored();
+        }
+    }
+
+    private void subscribe(PassengerFeedRequest request, StreamObserver<Passenger> observer) {
+        ServerCallStreamObserver<Passenger> call = (ServerCallStreamObserver<Passenger>) observer;
+        Subscription subscription = new Subscription(request, call);
+        call.setOnCancelHandler(() -> subscriptions.remove(subscription));
+        call.setOnReadyHandler(subscription::drain);
+        subscriptions.add(subscription);
+        subscription.drain();
+    }
+
+    /**
+     * A single subscriber of the feed.
+     */
+    private final class Subscription {
+
+        private final ServerCallStreamObserver<Passenger> call;
+        private final ImmutableSet<String> flights;
+
+        /**
+         * The number of the requests to send the new records which arrived while sending.
+         *
+         * <p>Only the thread which increments the counter from zero sends the records, so
+         * the records are never sent concurrently.
+         */
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        /**
+         * The offset of the last record sent to the subscriber or skipped as a record of
+         * another flight.
+         *
+         * <p>Accessed only by the thread which sends the records.
+         */
+        private long offset;
+
+        private Subscription(PassengerFeedRequest request,
+                             ServerCallStreamObserver<Passenger> call) {
+            this.call = call;
+            this.flights = request.flights();
+            this.offset = request.afterOffset();
+        }
+
+        /**
+         * Sends the new records on the executor of the feed, so that the records are stored
+         * regardless of how many subscribers there are.
+         *
+         * <p>A task is submitted only if the subscription is not sending the records already.
+         * Thus, the executor never holds more than one task per subscription, however fast
+         * the records are stored.
+         */
+        private void onStored() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::sendPending);
+            }
+        }
+
+        /**
+         * Sends the records stored after the last sent one while the subscriber is ready
+         * to receive them.
+         *
+         * <p>Is called when the subscription starts and when the subscriber becomes ready.
+         */
+        private void drain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                sendPending();
+            }
+        }
+
+        /**
+         * Sends the records until no more requests to send them are pending.
+         *
+         * <p>Is called only by the thread which incremented the number of the pending requests
+         * from zero.
+         */
+        private void sendPending() {
+            int missed = 1;
+            do {
+                try {
+                    sendAvailable();
+                } catch (StatusRuntimeException e) {
+                    subscriptions.remove(this);
+                    log.atFine()
+                       .withCause(e)
+                       .log("Passenger feed subscriber disconnected.");
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void sendAvailable() {
+            while (!call.isCancelled() && call.isReady()) {
+                Changes batch = repository.after(offset, flights, BATCH_SIZE);
+                if (batch.lastOffset() == offset) {
+                    return;
+                }
+                for (Passenger passenger : batch.passengers()) {
+                    if (call.isCancelled() || !call.isReady()) {
+                        return;
+                    }
+                    call.onNext(passenger);
+                    offset = passenger.offset();
+                }
+                offset = batch.lastOffset();
+            }
+        }
+    }
+
+    /**
+     * Encodes and decodes the {@code PassengerFeedRequest} messages.
+     */
+    private static final class RequestMarshaller implements Marshaller<PassengerFeedRequest> {
+
+        @Override
+        public InputStream stream(PassengerFeedRequest value) {
+            return new ByteArrayInputStream(value.toByteArray());
+        }
+
+        @Override
+        public PassengerFeedRequest parse(InputStream stream) {
+            try {
+                return PassengerFeedRequest.parseFrom(stream);
+            } catch (IOException e) {
+                throw Status.INVALID_ARGUMENT
+                        .withDescription("Invalid passenger feed request.")
+                        .withCause(e)
+                        .asRuntimeException();
+            }
+        }
+    }
+
+    /**
+     * Encodes and decodes the passengers as {@code TsaPassenger} messages.
+     */
+    private static final class PassengerMarshaller implements Marshaller<Passenger> {
+
+        @Override
+        public InputStream stream(Passenger value) {
+            return new ByteArrayInputStream(PassengersProtoWriter.toByteArray(value));
+        }
+
+        @Override
+        public Passenger parse(InputStream stream) {
+            try {
+                return PassengersProtoReader.parseFrom(stream);
+            } catch (IOException e) {
+                throw Status.INTERNAL
+                        .withDescription("Invalid passenger message.")
+                        .withCause(e)
+                        .asRuntimeException();
+            }
+        }
+    }
+}
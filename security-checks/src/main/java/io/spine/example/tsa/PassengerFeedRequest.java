@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.protobuf.CodedOutputStream.computeStringSize;
+import static com.google.protobuf.CodedOutputStream.computeUInt64Size;
+import static com.google.protobuf.WireFormat.getTagFieldNumber;
+
+/**
+ * A request to subscribe to the {@link PassengerFeed}.
+ *
+ * <p>Is encoded as the {@code PassengerFeedRequest} Protobuf message:
+ * <pre>
+ * message PassengerFeedRequest {
+ *     uint64 after_offset = 1;
+ *     repeated string flight_number = 2;
+ * }
+ * </pre>
+ */
+final class PassengerFeedRequest {
+
+    private static final int AFTER_OFFSET_FIELD = 1;
+    private static final int FLIGHT_NUMBER_FIELD = 2;
+
+    private final long afterOffset;
+    private final ImmutableSet<String> flights;
+
+    private PassengerFeedRequest(long afterOffset, ImmutableSet<String> flights) {
+        this.afterOffset = afterOffset;
+        this.flights = flights;
+    }
+
+    /**
+     * Creates a request for the passengers of the given flights stored after the given offset.
+     *
+     * @param afterOffset
+     *         the offset of the last passenger record known to the subscriber
+     * @param flights
+     *         the numbers of the flights of interest; empty for all the flights
+     */
+    static PassengerFeedRequest of(long afterOffset, Set<String> flights) {
+        checkArgument(afterOffset >= 0, "Offset must not be negative.");
+        checkNotNull(flights);
+        return new PassengerFeedRequest(afterOffset, ImmutableSet.copyOf(flights));
+    }
+
+    /**
+     * Decodes a request from the given stream.
+     */
+    static PassengerFeedRequest parseFrom(InputStream in) throws IOException {
+        checkNotNull(in);
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        long afterOffset = 0;
+        ImmutableSet.Builder<String> flights = ImmutableSet.builder();
+        int tag = input.readTag();
+        while (tag != 0) {
+            switch (getTagFieldNumber(tag)) {
+                case AFTER_OFFSET_FIELD:
+                    afterOffset = input.readUInt64();
+                    break;
+                case FLIGHT_NUMBER_FIELD:
+                    flights.add(input.readString());
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+            tag = input.readTag();
+        }
+        return new PassengerFeedRequest(afterOffset, flights.build());
+    }
+
+    /**
+     * Encodes this request as a {@code PassengerFeedRequest} message.
+     */
+    byte[] toByteArray() {
+        int size = afterOffset != 0 ? computeUInt64Size(AFTER_OFFSET_FIELD, afterOffset) : 0;
+        for (String flight : flights) {
+            size += computeStringSize(FLIGHT_NUMBER_FIELD, flight);
+        }
+        byte[] bytes = new byte[size];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            if (afterOffset != 0) {
+                output.writeUInt64(AFTER_OFFSET_FIELD, afterOffset);
+            }
+            for (String flight : flights) {
+                output.writeString(FLIGHT_NUMBER_FIELD, flight);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode a feed request into an array.", e);
+        }
+        output.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    /**
+     * Obtains the offset of the last passenger record known to the subscriber.
+     *
+     * <p>Zero means the subscriber has no records yet.
+     */
+    long afterOffset() {
+        return afterOffset;
+    }
+
+    /**
+     * Obtains the numbers of the flights of interest.
+     *
+     * <p>If empty, the subscriber is interested in the passengers of all the flights.
+     */
+    ImmutableSet<String> flights() {
+        return flights;
+    }
+}
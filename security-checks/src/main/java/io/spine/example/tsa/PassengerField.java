@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.gson.stream.JsonWriter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A field of a {@link Passenger} which may be {@linkplain PassengerProjection requested}
+ * in a {@code /passenger} response.
+ *
+ * <p>Each field knows how to write itself in the same JSON form as the one produced by
+ * {@link Passenger#toString()}. The absent values are not written.
+ */
+enum PassengerField {
+
+    ID("id") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.id(), json);
+        }
+    },
+    FULL_NAME("fullName") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.fullName(), json);
+        }
+    },
+    PASSPORT_NUMBER("passportNumber") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.passportNumber(), json);
+        }
+    },
+    NATIONALITY("nationality") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.nationality(), json);
+        }
+    },
+    PASSPORT_COUNTRY("passportCountry") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.passportCountry(), json);
+        }
+    },
+    FLIGHT_NUMBER("flightNumber") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.flightNumber(), json);
+        }
+    },
+    STATUS("status") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            writeString(jsonName(), passenger.status().name(), json);
+        }
+    },
+    ENCOUNTERED_AT("encounteredAt") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            Instant when = passenger.encounteredAt();
+            json.name(jsonName())
+                .beginObject()
+                .name("seconds").value(when.getEpochSecond())
+                .name("nanos").value(when.getNano())
+                .endObject();
+        }
+    },
+    VERSION("version") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            json.name(jsonName()).value(passenger.version());
+        }
+    },
+    OFFSET("offset") {
+        @Override
+        void writeJson(Passenger passenger, JsonWriter json) throws IOException {
+            json.name(jsonName()).value(passenger.offset());
+        }
+    };
+
+    private static final PassengerField[] fields = values();
+
+    private final String jsonName;
+
+    PassengerField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * Finds the field by its name in JSON, e.g. {@code flightNumber}.
+     *
+     * @throws IllegalArgumentException
+     *         if there is no such field
+     */
+    static PassengerField named(String jsonName) {
+        checkNotNull(jsonName);
+        for (PassengerField field : fields) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("Unknown passenger field `%s`.", jsonName));
+    }
+
+    /**
+     * Obtains the name of the field in JSON.
+     */
+    String jsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Writes the name and the value of this field of the given passenger.
+     */
+    abstract void writeJson(Passenger passenger, JsonWriter json) throws IOException;
+
+    private static void writeString(String name, @Nullable String value, JsonWriter json)
+            throws IOException {
+        if (value != null) {
+            json.name(name).value(value);
+        }
+    }
+}
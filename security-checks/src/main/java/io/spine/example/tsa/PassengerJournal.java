@@ -0,0 +1,485 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only on-disk journal of the passenger records stored in
+ * the {@link PassengerRepository}.
+ *
+ * <p>The journal consists of the numbered segment files. The records are appended to the last
+ * segment, which is sealed once it grows over {@link #SEGMENT_SIZE} bytes. Each record is:
+ * <pre>
+ * offset  size  field
+ *      0     4  length of the body
+ *      4     4  CRC32 of the body
+ *      8     8  offset of the record
+ *     16     8  version of the passenger
+ *     24     8  time the passenger was encountered in epoch milliseconds
+ *     32     1  ordinal of the status
+ *     33     1  bit mask of the present string fields
+ *     34     -  the present string fields, each as a 2-byte length and the UTF-8 bytes
+ * </pre>
+ *
+ * <p>The string fields go in the order: ID, full name, passport number, nationality,
+ * passport country, flight number. A record with a length or a checksum mismatch is
+ * considered torn by a crash, and the rest of its segment is ignored.
+ *
+ * <p>A record with a body of exactly {@link #MARK_SIZE} bytes is a high-water mark. Its body
+ * is only the offset of the latest record written before the compaction which produced it.
+ * The mark keeps the offsets growing after a restart, even if all the records expire.
+ *
+ * <p>The sealed segments are periodically {@linkplain #compact(Instant) compacted} into one,
+ * which keeps only the latest record of each passenger. Upon a restart, only the compacted
+ * segment and the few segments written after it are {@linkplain #replay() replayed}.
+ *
+ * <p>The data written into the segments survives a restart of the process. It is flushed to
+ * the disk by the operating system, except for the compacted segments, which are flushed
+ * explicitly before they replace the original ones.
+ */
+final class PassengerJournal {
+
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int HEADER_SIZE = 8;
+    private static final int MARK_SIZE = 8;
+    private static final int STRING_FIELDS = 6;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final String SEGMENT_NAME_FORMAT = "passengers-%08d.log";
+    private static final String SEGMENT_GLOB = "passengers-*.log";
+    private static final String COMPACTING_GLOB = "passengers-*.log.compacting";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private static final Passenger.Status[] statuses = Passenger.Status.values();
+
+    private final Path directory;
+
+    /**
+     * The numbers of the segments, oldest first.
+     *
+     * <p>The last segment is the one being appended to.
+     */
+    private final List<Integer> segments = new ArrayList<>();
+    private @Nullable FileChannel active;
+
+    private PassengerJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the journal in the given directory.
+     *
+     * <p>If the directory does not exist, it is created. The records of an existing journal
+     * may be obtained with {@link #replay()}. The new records are appended to a new segment.
+     */
+    static PassengerJournal open(Path directory) {
+        checkNotNull(directory);
+        PassengerJournal journal = new PassengerJournal(directory);
+        try {
+            Files.createDirectories(directory);
+            journal.findExistingSegments();
+            journal.startSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return journal;
+    }
+
+    /**
+     * Collects the numbers of the existing segments and removes the leftovers of
+     * an interrupted compaction.
+     */
+    private void findExistingSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+            for (Path file : stream) {
+                segments.add(segmentNumber(file));
+            }
+        }
+        segments.sort(null);
+        try (DirectoryStream<Path> stream =
+                     Files.newDirectoryStream(directory, COMPACTING_GLOB)) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName()
+                          .toString();
+        int start = name.indexOf('-') + 1;
+        int end = name.indexOf('.');
+        return Integer.parseInt(name.substring(start, end));
+    }
+
+    private void startSegment() throws IOException {
+        int number = segments.isEmpty()
+                     ? 0
+                     : segments.get(segments.size() - 1) + 1;
+        active = FileChannel.open(segmentPath(number), CREATE_NEW, WRITE, APPEND);
+        segments.add(number);
+    }
+
+    /**
+     * Appends a record of the given passenger.
+     *
+     * @param passenger
+     *         the stored passenger
+     * @param version
+     *         the version of the passenger
+     * @param offset
+     *         the offset of the record
+     */
+    synchronized void append(Passenger passenger, long version, long offset) {
+        checkNotNull(passenger);
+        checkNotNull(active);
+        try {
+            ByteBuffer record = encode(passenger, version, offset);
+            while (record.hasRemaining()) {
+                active.write(record);
+            }
+            if (active.position() >= SEGMENT_SIZE) {
+                sealSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sealSegment() throws IOException {
+        checkNotNull(active).close();
+        startSegment();
+    }
+
+    private static ByteBuffer encode(Passenger passenger, long version, long offset)
+            throws IOException {
+        @Nullable String[] strings = {
+                passenger.id(),
+                passenger.fullName(),
+                passenger.passportNumber(),
+                passenger.nationality(),
+                passenger.passportCountry(),
+                passenger.flightNumber()
+        };
+        int present = 0;
+        for (int i = 0; i < STRING_FIELDS; i++) {
+            if (strings[i] != null) {
+                present |= 1 << i;
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeLong(offset);
+        out.writeLong(version);
+        out.writeLong(passenger.encounteredAt()
+                               .toEpochMilli());
+        out.writeByte(passenger.status()
+                               .ordinal());
+        out.writeByte(present);
+        for (String string : strings) {
+            if (string != null) {
+                byte[] bytes = string.getBytes(UTF_8);
+                checkArgument(bytes.length <= MAX_STRING_LENGTH,
+                              "A passenger field is too long: `%s`.", string);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+        byte[] bytes = body.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        record.putInt(bytes.length)
+              .putInt((int) checksum.getValue())
+              .put(bytes)
+              .flip();
+        return record;
+    }
+
+    /**
+     * Reads the latest record of each passenger from the sealed segments.
+     *
+     * <p>The records are read from all the segments and the one with the greatest offset wins,
+     * so the result does not depend on the order of the segments. This makes the replay
+     * correct even if a compaction was interrupted before removing the compacted segments.
+     *
+     * @return the passengers with their versions and offsets, in the order of the offsets,
+     *         and the offset of the latest record ever written
+     */
+    Replay replay() {
+        List<Integer> sealed;
+        synchronized (this) {
+            sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+        }
+        Replay replay = new Replay();
+        latestRecords(sealed, replay);
+        return replay;
+    }
+
+    /**
+     * Replaces the sealed segments with a single one, which contains only the latest record
+     * of each passenger encountered not earlier than the given time.
+     *
+     * <p>The segment being appended to is sealed first, so that all the records written so far
+     * are compacted. The compacted segment is written into a temporary file, flushed to
+     * the disk and then atomically moved in place of the oldest sealed segment.
+     *
+     * <p>Must not be called concurrently with itself.
+     */
+    void compact(Instant oldestRetained) {
+        checkNotNull(oldestRetained);
+        List<Integer> sealed;
+        try {
+            synchronized (this) {
+                boolean appended = checkNotNull(active).position() > 0;
+                if (!appended && segments.size() <= 2) {
+                    return;
+                }
+                if (appended) {
+                    sealSegment();
+                }
+                sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            }
+            long oldest = oldestRetained.toEpochMilli();
+            Replay compacted = new Replay();
+            ImmutableList<Passenger> retained = latestRecords(sealed, compacted)
+                    .values()
+                    .stream()
+                    .filter(p -> p.encounteredAt().toEpochMilli() >= oldest)
+                    .sorted(Comparator.comparingLong(Passenger::offset))
+                    .collect(toImmutableList());
+            Path target = segmentPath(sealed.get(0));
+            Path temporary = target.resolveSibling(target.getFileName() + COMPACTING_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE)) {
+                for (Passenger passenger : retained) {
+                    ByteBuffer record =
+                            encode(passenger, passenger.version(), passenger.offset());
+                    while (record.hasRemaining()) {
+                        channel.write(record);
+                    }
+                }
+                ByteBuffer mark = encodeMark(compacted.lastOffset);
+                while (mark.hasRemaining()) {
+                    channel.write(mark);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, target, ATOMIC_MOVE, REPLACE_EXISTING);
+            List<Integer> merged = sealed.subList(1, sealed.size());
+            for (int number : merged) {
+                Files.delete(segmentPath(number));
+            }
+            synchronized (this) {
+                segments.removeAll(merged);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer encodeMark(long offset) {
+        ByteBuffer body = ByteBuffer.allocate(MARK_SIZE);
+        body.putLong(offset)
+            .flip();
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        body.rewind();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + MARK_SIZE);
+        record.putInt(MARK_SIZE)
+              .putInt((int) checksum.getValue())
+              .put(body)
+              .flip();
+        return record;
+    }
+
+    /**
+     * Reads the latest records of the passengers from the given segments into
+     * the given replay.
+     *
+     * @return the latest records by the passenger IDs
+     */
+    @CanIgnoreReturnValue
+    private Map<String, Passenger> latestRecords(List<Integer> segmentNumbers, Replay replay) {
+        for (int number : segmentNumbers) {
+            try {
+                readSegment(segmentPath(number), replay);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return replay.latest;
+    }
+
+    private static void readSegment(Path file, Replay replay) throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            segment = channel.map(READ_ONLY, 0, channel.size());
+        }
+        CRC32 checksum = new CRC32();
+        while (segment.remaining() >= HEADER_SIZE) {
+            int length = segment.getInt();
+            int expectedChecksum = segment.getInt();
+            if (length <= 0 || length > segment.remaining()) {
+                return;
+            }
+            ByteBuffer body = segment.slice();
+            body.limit(length);
+            checksum.reset();
+            checksum.update(body);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                return;
+            }
+            body.rewind();
+            if (length == MARK_SIZE) {
+                replay.advanceTo(body.getLong());
+            } else {
+                replay.add(decode(body));
+            }
+            segment.position(segment.position() + length);
+        }
+    }
+
+    private static Passenger decode(ByteBuffer body) {
+        long offset = body.getLong();
+        long version = body.getLong();
+        Instant encounteredAt = Instant.ofEpochMilli(body.getLong());
+        Passenger.Status status = statuses[body.get()];
+        int present = body.get();
+        @Nullable String[] strings = new String[STRING_FIELDS];
+        for (int i = 0; i < STRING_FIELDS; i++) {
+            if ((present & (1 << i)) != 0) {
+                byte[] bytes = new byte[Short.toUnsignedInt(body.getShort())];
+                body.get(bytes);
+                strings[i] = new String(bytes, UTF_8);
+            }
+        }
+        Passenger.Builder builder = Passenger
+                .newBuilder()
+                .setId(checkNotNull(strings[0], "A journal record has no passenger ID."))
+                .setStatus(status)
+                .setEncounteredAt(encounteredAt)
+                .setVersion(version)
+                .setOffset(offset);
+        if (strings[1] != null) {
+            builder.setFullName(strings[1]);
+        }
+        if (strings[2] != null) {
+            builder.setPassportNumber(strings[2]);
+        }
+        if (strings[3] != null) {
+            builder.setNationality(strings[3]);
+        }
+        if (strings[4] != null) {
+            builder.setPassportCountry(strings[4]);
+        }
+        if (strings[5] != null) {
+            builder.setFlightNumber(strings[5]);
+        }
+        return builder.build();
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(format(SEGMENT_NAME_FORMAT, number));
+    }
+
+    /**
+     * The records read from the journal.
+     */
+    static final class Replay {
+
+        private final Map<String, Passenger> latest = new HashMap<>();
+        private long lastOffset;
+
+        private Replay() {
+        }
+
+        private void add(Passenger passenger) {
+            latest.merge(passenger.id(), passenger,
+                         (known, read) -> read.offset() > known.offset() ? read : known);
+            advanceTo(passenger.offset());
+        }
+
+        private void advanceTo(long offset) {
+            lastOffset = Math.max(lastOffset, offset);
+        }
+
+        /**
+         * Obtains the latest record of each passenger in the order of the offsets.
+         */
+        ImmutableList<Passenger> passengers() {
+            return latest.values()
+                         .stream()
+                         .sorted(Comparator.comparingLong(Passenger::offset))
+                         .collect(toImmutableList());
+        }
+
+        /**
+         * Obtains the offset of the latest record ever written into the journal.
+         *
+         * <p>May be greater than the offsets of all the {@linkplain #passengers() passengers},
+         * if the later records were compacted away as expired.
+         */
+        long lastOffset() {
+            return lastOffset;
+        }
+    }
+}
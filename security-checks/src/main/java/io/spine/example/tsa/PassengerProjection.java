@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.gson.stream.JsonWriter;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A set of the {@linkplain PassengerField passenger fields} to be written into a response.
+ *
+ * <p>A projection is compiled once per distinct set of fields: the writers of the requested
+ * fields are picked in advance, so writing a passenger only runs through them.
+ */
+final class PassengerProjection {
+
+    private static final Splitter FIELD_SPLITTER = Splitter.on(',')
+                                                           .trimResults()
+                                                           .omitEmptyStrings();
+    private static final ConcurrentMap<ImmutableSet<PassengerField>, PassengerProjection>
+            compiled = new ConcurrentHashMap<>();
+    private static final PassengerProjection all =
+            of(EnumSet.allOf(PassengerField.class));
+
+    private final ImmutableSet<PassengerField> fields;
+    private final ImmutableList<PassengerField> jsonWriters;
+
+    private PassengerProjection(ImmutableSet<PassengerField> fields) {
+        this.fields = fields;
+        this.jsonWriters = fields.asList();
+    }
+
+    /**
+     * Obtains the projection which includes all the fields.
+     */
+    static PassengerProjection all() {
+        return all;
+    }
+
+    /**
+     * Parses the projection from a comma-separated list of the JSON field names,
+     * e.g. {@code id,flightNumber,status}.
+     *
+     * @param fieldNames
+     *         the names of the fields; if {@code null}, all the fields are included
+     * @throws IllegalArgumentException
+     *         if a field is unknown or no fields are listed
+     */
+    static PassengerProjection parse(@Nullable String fieldNames) {
+        if (fieldNames == null) {
+            return all;
+        }
+        Set<PassengerField> fields = EnumSet.noneOf(PassengerField.class);
+        for (String name : FIELD_SPLITTER.split(fieldNames)) {
+            fields.add(PassengerField.named(name));
+        }
+        checkArgument(!fields.isEmpty(), "At least one passenger field must be requested.");
+        return of(fields);
+    }
+
+    private static PassengerProjection of(Set<PassengerField> fields) {
+        ImmutableSet<PassengerField> key = Sets.immutableEnumSet(fields);
+        return compiled.computeIfAbsent(key, PassengerProjection::new);
+    }
+
+    /**
+     * Checks if the given field is included into this projection.
+     */
+    boolean includes(PassengerField field) {
+        checkNotNull(field);
+        return fields.contains(field);
+    }
+
+    /**
+     * Writes the given passengers in the JSON format directly into the given stream.
+     *
+     * <p>The JSON has the same structure as the one produced by {@link Passengers#toString()}
+     * with only the fields of this projection. The stream is flushed but not closed.
+     *
+     * <p>The JSON is buffered before the encoding, as the encoder allocates a new array for
+     * each string written into it directly.
+     */
+    void writeJson(Iterable<Passenger> passengers, OutputStream out) throws IOException {
+        checkNotNull(passengers);
+        checkNotNull(out);
+        JsonWriter json =
+                new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, UTF_8)));
+        json.beginObject()
+            .name("passengers")
+            .beginArray();
+        for (Passenger passenger : passengers) {
+            json.beginObject();
+            for (PassengerField field : jsonWriters) {
+                field.writeJson(passenger, json);
+            }
+            json.endObject();
+        }
+        json.endArray()
+            .endObject()
+            .flush();
+    }
+}
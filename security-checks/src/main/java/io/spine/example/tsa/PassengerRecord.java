@@ -0,0 +1,170 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+
+/**
+ * A compact representation of a {@link Passenger} stored in the {@link PassengerRepository}.
+ *
+ * <p>The nationality, the passport country and the flight number are replaced with
+ * {@linkplain StringDictionary dictionary} codes, the status with its ordinal and the time with
+ * the epoch milliseconds. The names are pooled, as many passengers share them.
+ */
+final class PassengerRecord {
+
+    private static final Interner<String> names = Interners.newWeakInterner();
+    private static final Passenger.Status[] statuses = Passenger.Status.values();
+
+    private final String id;
+    private final @Nullable String fullName;
+    private final @Nullable String passportNumber;
+    private final int nationality;
+    private final int passportCountry;
+    private final int flightNumber;
+    private final byte status;
+    private final long encounteredAt;
+    private final long version;
+    private final long offset;
+
+    private PassengerRecord(Passenger passenger,
+                            Dictionaries dictionaries,
+                            long version,
+                            long offset) {
+        this.id = passenger.id();
+        String fullName = passenger.fullName();
+        this.fullName = fullName == null ? null : names.intern(fullName);
+        this.passportNumber = passenger.passportNumber();
+        this.nationality = dictionaries.countries.encode(passenger.nationality());
+        this.passportCountry = dictionaries.countries.encode(passenger.passportCountry());
+        this.flightNumber = dictionaries.flights.encode(passenger.flightNumber());
+        this.status = (byte) passenger.status().ordinal();
+        this.encounteredAt = passenger.encounteredAt().toEpochMilli();
+        this.version = version;
+        this.offset = offset;
+    }
+
+    /**
+     * Encodes the given passenger.
+     *
+     * @param passenger
+     *         the passenger to encode
+     * @param dictionaries
+     *         the dictionaries to encode the repeating values with
+     * @param version
+     *         the version of the record
+     * @param offset
+     *         the offset of the record
+     */
+    static PassengerRecord encode(Passenger passenger,
+                                  Dictionaries dictionaries,
+                                  long version,
+                                  long offset) {
+        return new PassengerRecord(passenger, dictionaries, version, offset);
+    }
+
+    /**
+     * Restores the passenger from this record.
+     *
+     * @param dictionaries
+     *         the dictionaries this record was encoded with
+     */
+    Passenger decode(Dictionaries dictionaries) {
+        Passenger.Builder builder = Passenger
+                .newBuilder()
+                .setId(id)
+                .setStatus(statuses[status])
+                .setEncounteredAt(Instant.ofEpochMilli(encounteredAt))
+                .setVersion(version)
+                .setOffset(offset);
+        if (fullName != null) {
+            builder.setFullName(fullName);
+        }
+        if (passportNumber != null) {
+            builder.setPassportNumber(passportNumber);
+        }
+        String nationality = dictionaries.countries.decode(this.nationality);
+        if (nationality != null) {
+            builder.setNationality(nationality);
+        }
+        String passportCountry = dictionaries.countries.decode(this.passportCountry);
+        if (passportCountry != null) {
+            builder.setPassportCountry(passportCountry);
+        }
+        String flightNumber = dictionaries.flights.decode(this.flightNumber);
+        if (flightNumber != null) {
+            builder.setFlightNumber(flightNumber);
+        }
+        return builder.build();
+    }
+
+    String id() {
+        return id;
+    }
+
+    /**
+     * Obtains the code of the flight number in the {@linkplain Dictionaries#flights dictionary}.
+     */
+    int flightNumber() {
+        return flightNumber;
+    }
+
+    /**
+     * Obtains the time the passenger was encountered in epoch milliseconds.
+     */
+    long encounteredAt() {
+        return encounteredAt;
+    }
+
+    long version() {
+        return version;
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    /**
+     * The dictionaries shared by the records of a repository.
+     */
+    static final class Dictionaries {
+
+        private final StringDictionary countries = new StringDictionary();
+        private final StringDictionary flights = new StringDictionary();
+
+        /**
+         * Obtains the flight number by its code.
+         */
+        @Nullable String flightNumber(int code) {
+            return flights.decode(code);
+        }
+    }
+}
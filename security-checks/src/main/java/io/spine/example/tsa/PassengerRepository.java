@@ -27,29 +27,372 @@
 package io.spine.example.tsa;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Streams;
+import io.spine.example.tsa.PassengerJournal.Replay;
+import io.spine.example.tsa.PassengerRecord.Dictionaries;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.spine.example.tsa.PassengerBuckets.bucketOf;
 
+/**
+ * A repository of the passengers encountered at the security checks.
+ *
+ * <p>Only the latest record of each passenger is kept. Storing a passenger with a known ID
+ * replaces the previous record and increments its {@linkplain Passenger#version() version}.
+ * Each stored record also gets a new {@linkplain Passenger#offset() offset}, so that
+ * the changes may be read in the order they were stored.
+ *
+ * <p>The passengers are grouped into per-minute {@linkplain PassengerBuckets buckets} by
+ * the time they were encountered. Besides the buckets of all the passengers, each flight has
+ * its own buckets, so that a query for a few flights reads only the passengers of those flights.
+ *
+ * <p>The buckets older than the retention period are {@linkplain #removeExpired(Instant)
+ * removed} as a whole.
+ *
+ * <p>The passengers are kept as compact {@linkplain PassengerRecord records}, which are
+ * converted back to {@code Passenger}s only when returned from the queries. The time of
+ * a stored passenger is truncated to milliseconds.
+ *
+ * <p>A repository may be backed by a {@link PassengerJournal}. In this case, every stored record
+ * is appended to the journal, and the repository is {@linkplain #restore(Duration,
+ * PassengerJournal) restored} from it upon a restart.
+ */
 final class PassengerRepository {
 
-    private final Deque<Passenger> passengers = new ConcurrentLinkedDeque<>();
+    private final Dictionaries dictionaries = new Dictionaries();
+    private final ConcurrentMap<String, PassengerRecord> byId = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, PassengerRecord> byOffset = new ConcurrentSkipListMap<>();
+    private final PassengerBuckets all = new PassengerBuckets();
+    private final ConcurrentMap<String, PassengerBuckets> byFlight = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final @Nullable PassengerJournal journal;
+
+    /**
+     * The offset of the latest stored record.
+     *
+     * <p>Accessed only by the writers.
+     */
+    private long lastOffset;
+
+    /**
+     * Creates a new repository.
+     *
+     * @param retention
+     *         the minimum time for which a passenger is kept after being encountered
+     */
+    PassengerRepository(Duration retention) {
+        this(retention, null);
+    }
+
+    private PassengerRepository(Duration retention, @Nullable PassengerJournal journal) {
+        checkNotNull(retention);
+        checkArgument(!retention.isNegative() && !retention.isZero(),
+                      "Retention period must be positive.");
+        this.retention = retention;
+        this.journal = journal;
+    }
+
+    /**
+     * Creates a repository backed by the given journal.
+     *
+     * <p>The passengers recorded in the journal, which are not yet expired, are restored with
+     * their versions and offsets. The offsets of the newly stored records continue
+     * the recorded ones.
+     *
+     * @param retention
+     *         the minimum time for which a passenger is kept after being encountered
+     * @param journal
+     *         the journal to restore the passengers from and to record the new ones into
+     */
+    static PassengerRepository restore(Duration retention, PassengerJournal journal) {
+        checkNotNull(journal);
+        PassengerRepository repository = new PassengerRepository(retention, journal);
+        repository.restore(journal.replay(), Instant.now());
+        return repository;
+    }
+
+    /**
+     * Indexes the latest records of the passengers read from the journal and continues
+     * the offsets from the latest recorded one.
+     */
+    private synchronized void restore(Replay replay, Instant now) {
+        long oldestBucket = bucketOf(now.minus(retention)
+                                        .toEpochMilli());
+        lastOffset = replay.lastOffset();
+        for (Passenger passenger : replay.passengers()) {
+            PassengerRecord record = PassengerRecord.encode(passenger, dictionaries,
+                                                            passenger.version(),
+                                                            passenger.offset());
+            if (record.encounteredAt() >= oldestBucket) {
+                index(record);
+                byId.put(record.id(), record);
+            }
+        }
+    }
+
+    /**
+     * Obtains the number of the stored passengers.
+     */
+    int size() {
+        return byId.size();
+    }
+
+    /**
+     * Obtains a page of the passengers encountered after {@code since} and before {@code upto}.
+     *
+     * <p>The passengers are {@linkplain PassengerBuckets#ORDER ordered} by the minute they were
+     * encountered and then by their offsets.
+     *
+     * @param after
+     *         the position of the last passenger of the previous page; {@code null} for
+     *         the first page
+     * @param limit
+     *         the maximum number of passengers in the page
+     */
+    Passengers all(Instant since, Instant upto, @Nullable PageToken after, int limit) {
+        checkNotNull(since);
+        checkNotNull(upto);
+        checkArgument(limit > 0, "Limit must be positive.");
+        ImmutableList<Passenger> passengers = all
+                .between(since, upto, after)
+                .filter(this::isCurrent)
+                .limit(limit)
+                .map(record -> record.decode(dictionaries))
+                .collect(toImmutableList());
+        return new Passengers(passengers);
+    }
 
-    Passengers all(Instant since, Instant upto) {
-        ImmutableList<Passenger> passengers = this.passengers
+    /**
+     * Obtains a page of the passengers of the given flights encountered after {@code since}
+     * and before {@code upto}.
+     *
+     * <p>The passengers of all the given flights are merged in the same order as
+     * {@linkplain #all(Instant, Instant, PageToken, int) all the passengers}.
+     */
+    Passengers ofFlights(Set<String> flights,
+                         Instant since,
+                         Instant upto,
+                         @Nullable PageToken after,
+                         int limit) {
+        checkNotNull(flights);
+        checkNotNull(since);
+        checkNotNull(upto);
+        checkArgument(limit > 0, "Limit must be positive.");
+        ImmutableList<Iterator<PassengerRecord>> ofEachFlight = flights
                 .stream()
-                .filter(p -> p.encounteredAt().isAfter(since)
-                          && p.encounteredAt().isBefore(upto))
+                .map(byFlight::get)
+                .filter(Objects::nonNull)
+                .map(buckets -> buckets.between(since, upto, after)
+                                       .iterator())
+                .collect(toImmutableList());
+        Iterator<PassengerRecord> merged =
+                Iterators.mergeSorted(ofEachFlight, PassengerBuckets.ORDER);
+        ImmutableList<Passenger> passengers = Streams
+                .stream(merged)
+                .filter(this::isCurrent)
+                .limit(limit)
+                .map(record -> record.decode(dictionaries))
                 .collect(toImmutableList());
         return new Passengers(passengers);
     }
 
-    void store(Passenger passenger) {
+    /**
+     * Obtains up to {@code limit} current passenger records stored after the given offset,
+     * in the order of their offsets.
+     *
+     * <p>A passenger changed several times after the offset is returned once, with
+     * the latest change.
+     *
+     * <p>The records of other flights are skipped. The returned changes tell the offset of
+     * the last record looked at, so that the caller continues after the skipped records
+     * instead of looking at them again.
+     *
+     * @param offset
+     *         the offset of the last record already known to the caller; zero to read
+     *         from the beginning
+     * @param flights
+     *         the flight numbers of the passengers to return; if empty, the passengers of all
+     *         the flights are returned
+     * @param limit
+     *         the maximum number of records to return
+     */
+    Changes after(long offset, Set<String> flights, int limit) {
+        checkNotNull(flights);
+        checkArgument(limit > 0, "Limit must be positive.");
+        ImmutableList.Builder<Passenger> passengers = ImmutableList.builder();
+        int found = 0;
+        long lastOffset = offset;
+        for (PassengerRecord record : byOffset.tailMap(offset, false)
+                                              .values()) {
+            if (found == limit) {
+                break;
+            }
+            lastOffset = record.offset();
+            if (flights.isEmpty() || isOfFlight(record, flights)) {
+                passengers.add(record.decode(dictionaries));
+                found++;
+            }
+        }
+        return new Changes(passengers.build(), lastOffset);
+    }
+
+    private boolean isOfFlight(PassengerRecord record, Set<String> flights) {
+        String flight = dictionaries.flightNumber(record.flightNumber());
+        return flight != null && flights.contains(flight);
+    }
+
+    /**
+     * Stores the given passenger, replacing the previous record with the same ID, if any.
+     *
+     * <p>The writes are serialized, so that the records become visible to
+     * the {@linkplain #after(long, Set, int) readers} in the order of their offsets.
+     *
+     * <p>If the repository is backed by a journal, the record is appended to the journal
+     * before it becomes visible to the readers.
+     */
+    synchronized void store(Passenger passenger) {
         checkNotNull(passenger);
-        passengers.add(passenger);
+        checkNotNull(passenger.encounteredAt());
+        PassengerRecord previous = byId.get(passenger.id());
+        long version = previous == null
+                       ? 1
+                       : previous.version() + 1;
+        lastOffset++;
+        if (journal != null) {
+            journal.append(passenger, version, lastOffset);
+        }
+        PassengerRecord current =
+                PassengerRecord.encode(passenger, dictionaries, version, lastOffset);
+        index(current);
+        byId.put(current.id(), current);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    private void index(PassengerRecord record) {
+        byOffset.put(record.offset(), record);
+        all.add(record);
+        String flight = dictionaries.flightNumber(record.flightNumber());
+        if (flight != null) {
+            byFlight.compute(flight, (number, buckets) -> {
+                PassengerBuckets result = buckets == null
+                                          ? new PassengerBuckets()
+                                          : buckets;
+                result.add(record);
+                return result;
+            });
+        }
+    }
+
+    private void unindex(PassengerRecord record) {
+        byOffset.remove(record.offset());
+        all.remove(record);
+        String flight = dictionaries.flightNumber(record.flightNumber());
+        if (flight != null) {
+            PassengerBuckets buckets = byFlight.get(flight);
+            if (buckets != null) {
+                buckets.remove(record);
+            }
+        }
+    }
+
+    /**
+     * Checks if the given record is not older than the one in the primary index.
+     *
+     * <p>While a passenger is being replaced, both the previous and the new record may be
+     * current for a moment, but the passenger is never missing.
+     */
+    private boolean isCurrent(PassengerRecord record) {
+        PassengerRecord latest = byId.get(record.id());
+        return latest == null || record.version() >= latest.version();
+    }
+
+    /**
+     * Removes the buckets which contain only the passengers encountered earlier than
+     * the retention period before the given time.
+     *
+     * <p>The passengers whose latest record is expired and the flights which have
+     * no passengers left are removed from the indexes.
+     *
+     * <p>Is serialized with the {@linkplain #store(Passenger) writes}, as a write updates
+     * several indexes and relies on the previous record of the passenger staying in place
+     * meanwhile. The readers are not blocked.
+     */
+    synchronized void removeExpired(Instant now) {
+        checkNotNull(now);
+        Instant oldestRetained = now.minus(retention);
+        long oldestBucket = bucketOf(oldestRetained.toEpochMilli());
+        all.removeBefore(oldestRetained);
+        byId.values()
+            .removeIf(r -> r.encounteredAt() < oldestBucket);
+        byOffset.values()
+                .removeIf(r -> r.encounteredAt() < oldestBucket);
+        for (String flight : byFlight.keySet()) {
+            byFlight.computeIfPresent(flight, (number, buckets) -> {
+                buckets.removeBefore(oldestRetained);
+                return buckets.isEmpty() ? null : buckets;
+            });
+        }
+    }
+
+    /**
+     * Compacts the journal backing this repository, if any.
+     *
+     * <p>The journal keeps only the latest record of each passenger which is not yet expired
+     * at the given time.
+     */
+    void compactJournal(Instant now) {
+        checkNotNull(now);
+        if (journal != null) {
+            long oldestBucket = bucketOf(now.minus(retention)
+                                            .toEpochMilli());
+            journal.compact(Instant.ofEpochMilli(oldestBucket));
+        }
+    }
+
+    /**
+     * The passenger records read in the order of their offsets.
+     */
+    static final class Changes {
+
+        private final ImmutableList<Passenger> passengers;
+        private final long lastOffset;
+
+        private Changes(ImmutableList<Passenger> passengers, long lastOffset) {
+            this.passengers = passengers;
+            this.lastOffset = lastOffset;
+        }
+
+        /**
+         * Obtains the read passengers.
+         */
+        ImmutableList<Passenger> passengers() {
+            return passengers;
+        }
+
+        /**
+         * Obtains the offset of the last record looked at.
+         *
+         * <p>If all the {@linkplain #passengers() passengers} are consumed, the reading may
+         * continue after this offset.
+         */
+        long lastOffset() {
+            return lastOffset;
+        }
     }
 }
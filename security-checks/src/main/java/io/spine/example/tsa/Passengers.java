@@ -30,8 +30,13 @@ import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 public final class Passengers {
 
+    private static final Gson gson = new Gson();
+
     private final ImmutableList<Passenger> passengers;
 
     public Passengers(Iterable<Passenger> passengers) {
@@ -42,9 +47,25 @@ public final class Passengers {
         return passengers;
     }
 
+    /**
+     * Writes only the given fields of these passengers in the JSON format directly into
+     * the given stream.
+     */
+    void writeJsonTo(OutputStream out, PassengerProjection projection) throws IOException {
+        projection.writeJson(passengers, out);
+    }
+
+    /**
+     * Writes only the given fields of these passengers directly into the given stream as
+     * a sequence of length-delimited Protobuf messages.
+     */
+    void writeProtoTo(OutputStream out, PassengerProjection projection) throws IOException {
+        PassengersProtoWriter.write(passengers, projection, out);
+    }
+
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return gson.toJson(this);
     }
 
     @Override
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.protobuf.WireFormat.getTagFieldNumber;
+import static io.spine.example.tsa.PassengersProtoWriter.ENCOUNTERED_AT_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.FLIGHT_NUMBER_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.FULL_NAME_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.ID_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.NANOS_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.OFFSET_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.SECONDS_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.STATUS_FIELD;
+import static io.spine.example.tsa.PassengersProtoWriter.VERSION_FIELD;
+
+/**
+ * Reads the {@code TsaPassenger} messages written by the {@link PassengersProtoWriter}.
+ *
+ * <p>The fields absent from the message are left unset in the resulting {@link Passenger}.
+ */
+final class PassengersProtoReader {
+
+    private static final Passenger.Status[] statuses = Passenger.Status.values();
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private PassengersProtoReader() {
+    }
+
+    /**
+     * Decodes a single {@code TsaPassenger} message without the length prefix.
+     *
+     * @throws InvalidProtocolBufferException
+     *         if the message is malformed or has an unknown passenger status
+     */
+    static Passenger parseFrom(InputStream in) throws IOException {
+        checkNotNull(in);
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        Passenger.Builder passenger = Passenger.newBuilder();
+        int tag = input.readTag();
+        while (tag != 0) {
+            switch (getTagFieldNumber(tag)) {
+                case ID_FIELD:
+                    passenger.setId(input.readString());
+                    break;
+                case FULL_NAME_FIELD:
+                    passenger.setFullName(input.readString());
+                    break;
+                case FLIGHT_NUMBER_FIELD:
+                    passenger.setFlightNumber(input.readString());
+                    break;
+                case STATUS_FIELD:
+                    passenger.setStatus(status(input.readEnum()));
+                    break;
+                case ENCOUNTERED_AT_FIELD:
+                    passenger.setEncounteredAt(readTimestamp(input));
+                    break;
+                case VERSION_FIELD:
+                    passenger.setVersion(input.readUInt64());
+                    break;
+                case OFFSET_FIELD:
+                    passenger.setOffset(input.readUInt64());
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+            tag = input.readTag();
+        }
+        return passenger.build();
+    }
+
+    private static Passenger.Status status(int number) throws InvalidProtocolBufferException {
+        if (number < 1 || number > statuses.length) {
+            throw new InvalidProtocolBufferException("Unknown passenger status: " + number + '.');
+        }
+        return statuses[number - 1];
+    }
+
+    private static Instant readTimestamp(CodedInputStream input) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        long seconds = 0;
+        int nanos = 0;
+        int tag = input.readTag();
+        while (tag != 0) {
+            switch (getTagFieldNumber(tag)) {
+                case SECONDS_FIELD:
+                    seconds = input.readInt64();
+                    break;
+                case NANOS_FIELD:
+                    nanos = input.readInt32();
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+            tag = input.readTag();
+        }
+        input.popLimit(limit);
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+}
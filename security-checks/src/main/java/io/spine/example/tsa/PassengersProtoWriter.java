@@ -0,0 +1,222 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.protobuf.CodedOutputStream.computeEnumSize;
+import static com.google.protobuf.CodedOutputStream.computeInt32Size;
+import static com.google.protobuf.CodedOutputStream.computeInt64Size;
+import static com.google.protobuf.CodedOutputStream.computeStringSize;
+import static com.google.protobuf.CodedOutputStream.computeTagSize;
+import static com.google.protobuf.CodedOutputStream.computeUInt32SizeNoTag;
+import static com.google.protobuf.CodedOutputStream.computeUInt64Size;
+import static com.google.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
+import static io.spine.example.tsa.PassengerField.ENCOUNTERED_AT;
+import static io.spine.example.tsa.PassengerField.FLIGHT_NUMBER;
+import static io.spine.example.tsa.PassengerField.FULL_NAME;
+import static io.spine.example.tsa.PassengerField.ID;
+import static io.spine.example.tsa.PassengerField.OFFSET;
+import static io.spine.example.tsa.PassengerField.STATUS;
+import static io.spine.example.tsa.PassengerField.VERSION;
+
+/**
+ * Writes {@link Passenger}s in the Protobuf binary format directly into an output stream.
+ *
+ * <p>Each passenger is written as a length-delimited {@code TsaPassenger} message:
+ * <pre>
+ * message TsaPassenger {
+ *     string id = 1;
+ *     string fullName = 2;
+ *     string flightNumber = 3;
+ *     Status status = 4;
+ *     google.protobuf.Timestamp encounteredAt = 5;
+ *     uint64 version = 6;
+ *     uint64 offset = 7;
+ * }
+ * </pre>
+ *
+ * <p>The {@code Status} enum values are numbered starting with {@code 1} in the order of
+ * the {@link Passenger.Status} constants. Zero stands for an unknown status.
+ *
+ * <p>The passport number, the nationality and the passport country are not a part of
+ * the message, so they are never written.
+ *
+ * <p>Clients may read the messages one by one with {@code TsaPassenger.parseDelimitedFrom()}
+ * until the stream is exhausted.
+ *
+ * @see PassengersProtoReader
+ */
+final class PassengersProtoWriter {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    static final int ID_FIELD = 1;
+    static final int FULL_NAME_FIELD = 2;
+    static final int FLIGHT_NUMBER_FIELD = 3;
+    static final int STATUS_FIELD = 4;
+    static final int ENCOUNTERED_AT_FIELD = 5;
+    static final int VERSION_FIELD = 6;
+    static final int OFFSET_FIELD = 7;
+
+    static final int SECONDS_FIELD = 1;
+    static final int NANOS_FIELD = 2;
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private PassengersProtoWriter() {
+    }
+
+    /**
+     * Writes the given passengers into the given stream.
+     *
+     * <p>Only the fields included into the given projection are written. The stream is flushed
+     * but not closed.
+     */
+    static void write(Iterable<Passenger> passengers,
+                      PassengerProjection projection,
+                      OutputStream out) throws IOException {
+        checkNotNull(passengers);
+        checkNotNull(projection);
+        checkNotNull(out);
+        CodedOutputStream output = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        for (Passenger passenger : passengers) {
+            writeDelimited(passenger, projection, output);
+        }
+        output.flush();
+        out.flush();
+    }
+
+    /**
+     * Encodes the given passenger as a single {@code TsaPassenger} message without
+     * the length prefix.
+     */
+    static byte[] toByteArray(Passenger passenger) {
+        checkNotNull(passenger);
+        PassengerProjection all = PassengerProjection.all();
+        byte[] bytes = new byte[messageSize(passenger, all)];
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        try {
+            writeFields(passenger, all, output);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode a passenger into an array.", e);
+        }
+        output.checkNoSpaceLeft();
+        return bytes;
+    }
+
+    private static void writeDelimited(Passenger passenger,
+                                       PassengerProjection projection,
+                                       CodedOutputStream output) throws IOException {
+        output.writeUInt32NoTag(messageSize(passenger, projection));
+        writeFields(passenger, projection, output);
+    }
+
+    private static int messageSize(Passenger passenger, PassengerProjection projection) {
+        String fullName = passenger.fullName();
+        String flightNumber = passenger.flightNumber();
+        long version = passenger.version();
+        long offset = passenger.offset();
+
+        int size = 0;
+        if (projection.includes(ID)) {
+            size += computeStringSize(ID_FIELD, passenger.id());
+        }
+        if (fullName != null && projection.includes(FULL_NAME)) {
+            size += computeStringSize(FULL_NAME_FIELD, fullName);
+        }
+        if (flightNumber != null && projection.includes(FLIGHT_NUMBER)) {
+            size += computeStringSize(FLIGHT_NUMBER_FIELD, flightNumber);
+        }
+        if (projection.includes(STATUS)) {
+            size += computeEnumSize(STATUS_FIELD, statusNumber(passenger.status()));
+        }
+        if (projection.includes(ENCOUNTERED_AT)) {
+            int timestampSize = timestampSize(passenger.encounteredAt());
+            size += computeTagSize(ENCOUNTERED_AT_FIELD)
+                  + computeUInt32SizeNoTag(timestampSize)
+                  + timestampSize;
+        }
+        if (version != 0 && projection.includes(VERSION)) {
+            size += computeUInt64Size(VERSION_FIELD, version);
+        }
+        if (offset != 0 && projection.includes(OFFSET)) {
+            size += computeUInt64Size(OFFSET_FIELD, offset);
+        }
+        return size;
+    }
+
+    private static void writeFields(Passenger passenger,
+                                    PassengerProjection projection,
+                                    CodedOutputStream output) throws IOException {
+        String fullName = passenger.fullName();
+        String flightNumber = passenger.flightNumber();
+        long version = passenger.version();
+        long offset = passenger.offset();
+
+        if (projection.includes(ID)) {
+            output.writeString(ID_FIELD, passenger.id());
+        }
+        if (fullName != null && projection.includes(FULL_NAME)) {
+            output.writeString(FULL_NAME_FIELD, fullName);
+        }
+        if (flightNumber != null && projection.includes(FLIGHT_NUMBER)) {
+            output.writeString(FLIGHT_NUMBER_FIELD, flightNumber);
+        }
+        if (projection.includes(STATUS)) {
+            output.writeEnum(STATUS_FIELD, statusNumber(passenger.status()));
+        }
+        if (projection.includes(ENCOUNTERED_AT)) {
+            Instant when = passenger.encounteredAt();
+            output.writeTag(ENCOUNTERED_AT_FIELD, WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(timestampSize(when));
+            output.writeInt64(SECONDS_FIELD, when.getEpochSecond());
+            output.writeInt32(NANOS_FIELD, when.getNano());
+        }
+        if (version != 0 && projection.includes(VERSION)) {
+            output.writeUInt64(VERSION_FIELD, version);
+        }
+        if (offset != 0 && projection.includes(OFFSET)) {
+            output.writeUInt64(OFFSET_FIELD, offset);
+        }
+    }
+
+    private static int statusNumber(Passenger.Status status) {
+        return status.ordinal() + 1;
+    }
+
+    private static int timestampSize(Instant when) {
+        return computeInt64Size(SECONDS_FIELD, when.getEpochSecond())
+             + computeInt32Size(NANOS_FIELD, when.getNano());
+    }
+}
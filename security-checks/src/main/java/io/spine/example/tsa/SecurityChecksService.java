@@ -26,17 +26,74 @@
 
 package io.spine.example.tsa;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.spine.example.http.ResponseCompression;
+import spark.Request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.flogger.FluentLogger.forEnclosingClass;
 import static java.lang.Long.parseLong;
 import static java.time.Instant.ofEpochSecond;
-import static java.util.concurrent.ForkJoinPool.commonPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static spark.Spark.get;
 import static spark.Spark.port;
 
 final class SecurityChecksService {
 
+    private static final FluentLogger log = forEnclosingClass();
+
     private static final int PORT = 8282;
+    private static final int FEED_PORT = 8283;
+    private static final String ACCEPT_HEADER = "Accept";
+    private static final String NEXT_TOKEN_HEADER = "X-Next-Token";
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
+
+    private static final String RETENTION_PROPERTY = "tsa.retention";
+    private static final Duration DEFAULT_RETENTION = Duration.ofHours(24);
+
+    private static final String JOURNAL_DIR_PROPERTY = "tsa.journal.dir";
+    private static final String DEFAULT_JOURNAL_DIR = "tsa-journal";
+    private static final String COMPACTION_PERIOD_PROPERTY = "tsa.journal.compactionPeriod";
+    private static final Duration DEFAULT_COMPACTION_PERIOD = Duration.ofMinutes(10);
+
+    private static final String GZIP_MIN_SIZE_PROPERTY = "tsa.gzip.minSize";
+    private static final String GZIP_LEVEL_PROPERTY = "tsa.gzip.level";
+    private static final int DEFAULT_GZIP_MIN_SIZE = 1024;
+    private static final int DEFAULT_GZIP_LEVEL = 6;
+
+    private static final String FEED_THREADS_PROPERTY = "tsa.feedThreads";
+
+    private static final String LANES_PROPERTY = "tsa.lanes";
+    private static final String PASSENGER_RATE_PROPERTY = "tsa.passengersPerSecond";
+    private static final String FLIGHTS_PROPERTY = "tsa.flights";
+    private static final String SEED_PROPERTY = "tsa.seed";
+    private static final double DEFAULT_PASSENGER_RATE = 1.0 / 40;
+    private static final String DEFAULT_FLIGHTS = "42";
 
     /**
      * Prevents the utility class instantiation.
@@ -46,8 +103,13 @@ final class SecurityChecksService {
 
     public static void main(String[] args) {
         port(PORT);
-        PassengerRepository repository = new PassengerRepository();
-        generatePassengers(repository);
+        PassengerRepository repository = openRepository();
+        PassengerFeed feed = new PassengerFeed(repository, feedExecutor());
+        startFeed(feed);
+        startSimulation(repository, feed);
+        sweepExpired(repository);
+        compactJournal(repository);
+        ResponseCompression compression = compression();
         get("/passenger", (request, response) -> {
             String sinceParam = request.queryParams("since");
             Instant since = ofEpochSecond(parseLong(sinceParam));
@@ -55,17 +117,215 @@ final class SecurityChecksService {
             String uptoParam = request.queryParams("upto");
             Instant upto = ofEpochSecond(parseLong(uptoParam));
 
-            return repository.all(since, upto);
+            String tokenParam = request.queryParams("token");
+            PageToken after = tokenParam == null
+                              ? null
+                              : PageToken.decode(tokenParam);
+            int limit = limit(request);
+            PassengerProjection projection =
+                    PassengerProjection.parse(request.queryParams("fields"));
+
+            String[] flights = request.queryParamsValues("flight");
+            Passengers passengers = flights == null
+                                    ? repository.all(since, upto, after, limit)
+                                    : repository.ofFlights(ImmutableSet.copyOf(flights),
+                                                           since, upto, after, limit);
+            ImmutableList<Passenger> page = passengers.passengers();
+            if (page.size() == limit) {
+                Passenger last = page.get(page.size() - 1);
+                response.header(NEXT_TOKEN_HEADER, PageToken.after(last)
+                                                            .encode());
+            }
+            boolean protobuf = acceptsProtobuf(request);
+            response.type(protobuf ? PROTOBUF_CONTENT_TYPE : JSON_CONTENT_TYPE);
+            try (OutputStream out = compression.bodyOf(request, response)) {
+                if (protobuf) {
+                    passengers.writeProtoTo(out, projection);
+                } else {
+                    passengers.writeJsonTo(out, projection);
+                }
+            }
+            return "";
         });
     }
 
-    @SuppressWarnings("InfiniteLoopStatement")
-    private static void generatePassengers(PassengerRepository repository) {
-        SecurityGate gate = new SecurityGate();
-        commonPool().execute(() -> {
-            while (true) {
-                repository.store(gate.registerNext());
+    /**
+     * Obtains the period for which the passengers are kept.
+     *
+     * <p>The period is set by the {@code tsa.retention} property in the ISO-8601 duration
+     * format, e.g. {@code PT2H}. By default, the passengers are kept for 24 hours.
+     */
+    private static Duration retention() {
+        String retention = System.getProperty(RETENTION_PROPERTY);
+        return retention == null
+               ? DEFAULT_RETENTION
+               : Duration.parse(retention);
+    }
+
+    /**
+     * Restores the repository from the passenger journal.
+     *
+     * <p>The journal resides in the directory set by the {@code tsa.journal.dir} property,
+     * {@code tsa-journal} by default.
+     */
+    private static PassengerRepository openRepository() {
+        Path directory = Paths.get(System.getProperty(JOURNAL_DIR_PROPERTY, DEFAULT_JOURNAL_DIR));
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        PassengerRepository repository =
+                PassengerRepository.restore(retention(), PassengerJournal.open(directory));
+        log.atInfo()
+           .log("Restored %d passenger(s) from the journal in `%s` in %s.",
+                repository.size(), directory.toAbsolutePath(), stopwatch);
+        return repository;
+    }
+
+    /**
+     * Periodically compacts the passenger journal.
+     *
+     * <p>The period is set by the {@code tsa.journal.compactionPeriod} property in the ISO-8601
+     * duration format. By default, the journal is compacted every 10 minutes.
+     */
+    private static void compactJournal(PassengerRepository repository) {
+        String periodProperty = System.getProperty(COMPACTION_PERIOD_PROPERTY);
+        Duration period = periodProperty == null
+                          ? DEFAULT_COMPACTION_PERIOD
+                          : Duration.parse(periodProperty);
+        ScheduledExecutorService compactor = newSingleThreadScheduledExecutor();
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                repository.compactJournal(Instant.now());
+            } catch (UncheckedIOException e) {
+                log.atWarning()
+                   .withCause(e)
+                   .log("Unable to compact the passenger journal.");
             }
-        });
+        }, period.toMillis(), period.toMillis(), MILLISECONDS);
+    }
+
+    /**
+     * Periodically removes the passengers which are older than the retention period.
+     *
+     * <p>A failed sweep is logged, and the next one is attempted as scheduled.
+     */
+    private static void sweepExpired(PassengerRepository repository) {
+        ScheduledExecutorService sweeper = newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                repository.removeExpired(Instant.now());
+            } catch (RuntimeException e) {
+                log.atSevere()
+                   .withCause(e)
+                   .log("Unable to remove the expired passengers.");
+            }
+        }, 1, 1, MINUTES);
+    }
+
+    /**
+     * Creates the compression of the responses according to the system properties.
+     *
+     * <p>The responses larger than {@code tsa.gzip.minSize} bytes, 1 KiB by default, are
+     * compressed with gzip if the client accepts it. The compression level is set by
+     * the {@code tsa.gzip.level} property from 1 to 9, 6 by default.
+     */
+    private static ResponseCompression compression() {
+        int minSize = Integer.getInteger(GZIP_MIN_SIZE_PROPERTY, DEFAULT_GZIP_MIN_SIZE);
+        int level = Integer.getInteger(GZIP_LEVEL_PROPERTY, DEFAULT_GZIP_LEVEL);
+        return new ResponseCompression(minSize, level);
+    }
+
+    /**
+     * Obtains the maximum number of passengers in a page.
+     *
+     * <p>The number is set by the {@code limit} query parameter, which may not exceed
+     * {@link #MAX_PAGE_SIZE}.
+     */
+    private static int limit(Request request) {
+        String limitParam = request.queryParams("limit");
+        if (limitParam == null) {
+            return MAX_PAGE_SIZE;
+        }
+        int limit = Integer.parseInt(limitParam);
+        checkArgument(limit > 0, "Limit must be positive.");
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static boolean acceptsProtobuf(Request request) {
+        String accept = request.headers(ACCEPT_HEADER);
+        return accept != null && accept.contains(PROTOBUF_CONTENT_TYPE);
+    }
+
+    /**
+     * Creates the executor which sends the new passenger records to the feed subscribers.
+     *
+     * <p>The executor has {@code tsa.feedThreads} threads, one per available processor by
+     * default. The number of the threads is fixed, so that a burst of passengers does not spawn
+     * threads or compete with the other users of the common pool. The queue of the executor does
+     * not grow past the number of the subscribers, as each of them submits one task at a time.
+     */
+    private static ExecutorService feedExecutor() {
+        int threads = Integer.getInteger(FEED_THREADS_PROPERTY,
+                                         Runtime.getRuntime().availableProcessors());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("passenger-feed-%d")
+                .setDaemon(true)
+                .build();
+        return newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Starts the gRPC server which streams the passenger changes to the subscribers.
+     */
+    private static void startFeed(PassengerFeed feed) {
+        Server server = ServerBuilder
+                .forPort(FEED_PORT)
+                .addService(feed.definition())
+                .build();
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts registering passengers according to the system properties.
+     *
+     * <p>The checkpoint has {@code tsa.lanes} lanes, one by default, which register
+     * {@code tsa.passengersPerSecond} passengers per second in total. By default, one passenger
+     * is registered per 40 seconds.
+     *
+     * <p>The flights of the passengers are picked from the {@code tsa.flights} property, which is
+     * a comma-separated list of flight numbers with optional weights, e.g. {@code PS101:5,LH202}.
+     * By default, all the passengers are of flight {@code 42}.
+     *
+     * <p>If the {@code tsa.seed} property is set, the passengers are produced by fast seeded
+     * generators, so that they are the same in every run, except for the passenger IDs, which
+     * are unique to each run.
+     */
+    private static void startSimulation(PassengerRepository repository, PassengerFeed feed) {
+        int laneCount = Integer.getInteger(LANES_PROPERTY, 1);
+        checkArgument(laneCount > 0, "There must be at least one security lane.");
+        String rateProperty = System.getProperty(PASSENGER_RATE_PROPERTY);
+        double passengersPerSecond = rateProperty == null
+                                     ? DEFAULT_PASSENGER_RATE
+                                     : Double.parseDouble(rateProperty);
+        FlightDistribution flights =
+                FlightDistribution.parse(System.getProperty(FLIGHTS_PROPERTY, DEFAULT_FLIGHTS));
+        Long seed = Long.getLong(SEED_PROPERTY);
+        long idSalt = new SecureRandom().nextLong();
+        ImmutableList.Builder<SecurityGate> lanes = ImmutableList.builder();
+        for (int i = 0; i < laneCount; i++) {
+            Random rand = seed == null
+                          ? new Random()
+                          : new Random(seed + i);
+            lanes.add(new SecurityGate(rand, flights, idSalt));
+        }
+        int threads = Math.min(laneCount, Runtime.getRuntime().availableProcessors());
+        CheckpointSimulation simulation =
+                new CheckpointSimulation(newScheduledThreadPool(threads), passengersPerSecond);
+        simulation.start(lanes.build(), repository, feed);
+        log.atInfo()
+           .log("Started %d security lane(s) at %s passengers per second in total.",
+                laneCount, passengersPerSecond);
     }
 }
@@ -28,17 +28,24 @@ package io.spine.example.tsa;
 
 import com.google.common.collect.ImmutableList;
 
-import java.security.SecureRandom;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.Random;
 import java.util.UUID;
 
-import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * A single lane of the security checkpoint.
+ *
+ * <p>Produces the passengers of the flights picked from the given distribution. All
+ * the random values come from the given generator, so a lane with a seeded generator produces
+ * the same passengers in every run. The passenger IDs are the only exception: they are also
+ * mixed with a value unique to the run, so that the passengers of a restarted lane are not taken
+ * for the updates of the passengers {@linkplain PassengerRepository#restore restored} from
+ * the previous run.
+ */
 final class SecurityGate {
 
-    private static final Random rand = new SecureRandom();
     private static final ImmutableList<String> NAMES = ImmutableList.of(
             "Dasher",
             "Dancer",
@@ -50,25 +57,53 @@ final class SecurityGate {
             "Blixem"
     );
 
+    private static final long UUID_VERSION_MASK = 0xF000L;
+    private static final long UUID_VERSION_4 = 0x4000L;
+    private static final long UUID_VARIANT_MASK = 0xC000_0000_0000_0000L;
+    private static final long UUID_VARIANT_RFC_4122 = 0x8000_0000_0000_0000L;
+
+    private final Random rand;
+    private final FlightDistribution flights;
+    private final long idSalt;
+
+    /**
+     * Creates a new lane.
+     *
+     * @param rand
+     *         the generator of the random values of the passengers
+     * @param flights
+     *         the distribution to pick the flights of the passengers from
+     * @param idSalt
+     *         the value to mix into the passenger IDs, unique to the run
+     */
+    SecurityGate(Random rand, FlightDistribution flights, long idSalt) {
+        this.rand = checkNotNull(rand);
+        this.flights = checkNotNull(flights);
+        this.idSalt = idSalt;
+    }
+
     Passenger registerNext() {
-        sleepUninterruptibly(randomTimeout());
         String name = NAMES.get(rand.nextInt(NAMES.size()));
         Passenger passenger = Passenger
                 .newBuilder()
-                .setId(UUID.randomUUID().toString())
+                .setId(nextId())
                 .setFullName(name)
                 .setPassportNumber(name + rand.nextInt())
-                .setFlightNumber("42")
-                .setNationality(Passenger.Nationality.random().name())
-                .setPassportCountry(Passenger.Nationality.random().name())
+                .setFlightNumber(flights.next(rand))
+                .setNationality(Passenger.Nationality.random(rand).name())
+                .setPassportCountry(Passenger.Nationality.random(rand).name())
                 .setEncounteredAt(Instant.now())
-                .setStatus(Passenger.Status.random())
+                .setStatus(Passenger.Status.random(rand))
                 .build();
         return passenger;
     }
 
-    @SuppressWarnings("MagicNumber")
-    private static Duration randomTimeout() {
-        return Duration.ofSeconds(rand.nextInt(60) + 10);
+    /**
+     * Generates a random version 4 UUID from the random values of the lane and the ID salt.
+     */
+    private String nextId() {
+        long mostSigBits = (rand.nextLong() ^ idSalt) & ~UUID_VERSION_MASK | UUID_VERSION_4;
+        long leastSigBits = rand.nextLong() & ~UUID_VARIANT_MASK | UUID_VARIANT_RFC_4122;
+        return new UUID(mostSigBits, leastSigBits).toString();
     }
 }
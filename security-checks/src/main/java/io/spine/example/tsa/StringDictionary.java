@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only dictionary which replaces repeating strings with integer codes.
+ *
+ * <p>Suits the values with a small number of distinct options, such as countries or flight
+ * numbers. The code {@code 0} stands for {@code null}.
+ *
+ * <p>The codes are {@code int}s rather than {@code short}s, so that a long-running service
+ * with many distinct flight numbers never runs out of codes.
+ */
+final class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /**
+     * The values indexed by their codes.
+     *
+     * <p>Replaced with a larger copy when full. The element {@code 0} is always {@code null}.
+     */
+    private volatile @Nullable String[] values = new String[INITIAL_CAPACITY];
+    private int size = 1;
+
+    /**
+     * Obtains the code of the given value, adding the value to the dictionary if needed.
+     */
+    int encode(@Nullable String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        @Nullable String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = value;
+        values = current;
+        int code = size;
+        size++;
+        codes.put(value, code);
+        return code;
+    }
+
+    /**
+     * Obtains the value of the given code.
+     */
+    @Nullable String decode(int code) {
+        return values[code];
+    }
+}
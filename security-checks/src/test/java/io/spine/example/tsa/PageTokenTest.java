@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`PageToken` should")
+class PageTokenTest {
+
+    @Test
+    @DisplayName("point after the given passenger")
+    void pointAfterPassenger() {
+        Passenger passenger = Passenger
+                .newBuilder()
+                .setId("passenger-1")
+                .setStatus(Passenger.Status.PASSED)
+                .setEncounteredAt(Instant.parse("2021-03-01T10:15:42.123Z"))
+                .setOffset(42)
+                .build();
+
+        PageToken token = PageToken.after(passenger);
+
+        assertEquals(Instant.parse("2021-03-01T10:15:00Z").toEpochMilli(), token.bucket());
+        assertEquals(42, token.offset());
+    }
+
+    @Test
+    @DisplayName("restore the same position from the encoded form")
+    void roundTrip() {
+        Passenger passenger = Passenger
+                .newBuilder()
+                .setId("passenger-2")
+                .setStatus(Passenger.Status.DENIED)
+                .setEncounteredAt(Instant.ofEpochMilli(1_614_556_800_000L))
+                .setOffset(Long.MAX_VALUE)
+                .build();
+        PageToken token = PageToken.after(passenger);
+
+        PageToken decoded = PageToken.decode(token.encode());
+
+        assertEquals(token.bucket(), decoded.bucket());
+        assertEquals(token.offset(), decoded.offset());
+    }
+
+    @Test
+    @DisplayName("produce a URL-safe token")
+    void urlSafe() {
+        Passenger passenger = Passenger
+                .newBuilder()
+                .setId("passenger-3")
+                .setStatus(Passenger.Status.PASSED)
+                .setEncounteredAt(Instant.ofEpochMilli(-1))
+                .setOffset(1L << 40)
+                .build();
+
+        String token = PageToken.after(passenger)
+                                .encode();
+
+        assertEquals(-1, token.indexOf('+'));
+        assertEquals(-1, token.indexOf('/'));
+        assertEquals(-1, token.indexOf('='));
+    }
+
+    @Test
+    @DisplayName("reject a token of a wrong size")
+    void rejectWrongSize() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("AAAA"));
+    }
+
+    @Test
+    @DisplayName("reject a token which is not Base64")
+    void rejectNotBase64() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("not a token!"));
+    }
+}
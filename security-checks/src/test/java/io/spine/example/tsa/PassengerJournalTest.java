@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.tsa;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.example.tsa.PassengerJournal.Replay;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("`PassengerJournal` should")
+class PassengerJournalTest {
+
+    private static final Instant NOW = Instant.ofEpochMilli(1_614_556_800_000L);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("replay the latest record of each passenger in the order of the offsets")
+    void replayLatest() {
+        PassengerJournal journal = PassengerJournal.open(directory);
+        journal.append(passenger("a", NOW), 1, 1);
+        journal.append(passenger("b", NOW), 1, 2);
+        journal.append(passenger("a", NOW.plusSeconds(1)), 2, 3);
+
+        Replay replay = PassengerJournal.open(directory)
+                                        .replay();
+
+        ImmutableList<Passenger> passengers = replay.passengers();
+        assertEquals(2, passengers.size());
+        Passenger b = passengers.get(0);
+        Passenger a = passengers.get(1);
+        assertEquals("b", b.id());
+        assertEquals(2, b.offset());
+        assertEquals("a", a.id());
+        assertEquals(2, a.version());
+        assertEquals(3, a.offset());
+        assertEquals(NOW.plusSeconds(1), a.encounteredAt());
+        assertEquals(3, replay.lastOffset());
+    }
+
+    @Test
+    @DisplayName("restore all the fields of a passenger")
+    void restoreFields() {
+        Passenger passenger = passenger("c", NOW);
+        PassengerJournal.open(directory)
+                        .append(passenger, 5, 7);
+
+        Passenger restored = PassengerJournal.open(directory)
+                                             .replay()
+                                             .passengers()
+                                             .get(0);
+
+        assertEquals(passenger, restored);
+        assertEquals(5, restored.version());
+        assertEquals(7, restored.offset());
+    }
+
+    @Test
+    @DisplayName("restore a passenger without the optional fields")
+    void restoreAbsentFields() {
+        Passenger passenger = Passenger
+                .newBuilder()
+                .setId("d")
+                .setStatus(Passenger.Status.NOT_ATTEMPTED)
+                .setEncounteredAt(NOW)
+                .build();
+        PassengerJournal.open(directory)
+                        .append(passenger, 1, 1);
+
+        Passenger restored = PassengerJournal.open(directory)
+                                             .replay()
+                                             .passengers()
+                                             .get(0);
+
+        assertEquals(passenger, restored);
+        assertNull(restored.fullName());
+        assertNull(restored.flightNumber());
+    }
+
+    @Test
+    @DisplayName("ignore a record torn by a crash")
+    void ignoreTornRecord() throws IOException {
+        PassengerJournal journal = PassengerJournal.open(directory);
+        journal.append(passenger("e", NOW), 1, 1);
+        Path segment = onlySegment();
+        long intact = Files.size(segment);
+        journal.append(passenger("f", NOW), 1, 2);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, (int) intact + 12));
+
+        Replay replay = PassengerJournal.open(directory)
+                                        .replay();
+
+        assertEquals(ImmutableList.of("e"), idsOf(replay.passengers()));
+    }
+
+    @Test
+    @DisplayName("drop the expired and the overwritten records when compacted")
+    void compact() {
+        PassengerJournal journal = PassengerJournal.open(directory);
+        journal.append(passenger("old", NOW.minusSeconds(3600)), 1, 1);
+        journal.append(passenger("g", NOW), 1, 2);
+        journal.append(passenger("g", NOW), 2, 3);
+
+        journal.compact(NOW.minusSeconds(60));
+        Replay replay = PassengerJournal.open(directory)
+                                        .replay();
+
+        ImmutableList<Passenger> passengers = replay.passengers();
+        assertEquals(ImmutableList.of("g"), idsOf(passengers));
+        assertEquals(2, passengers.get(0).version());
+        assertEquals(3, replay.lastOffset());
+    }
+
+    @Test
+    @DisplayName("keep the last offset after all the records expire")
+    void keepLastOffset() {
+        PassengerJournal journal = PassengerJournal.open(directory);
+        journal.append(passenger("h", NOW), 1, 41);
+        journal.append(passenger("i", NOW), 1, 42);
+
+        journal.compact(NOW.plusSeconds(1));
+        Replay replay = PassengerJournal.open(directory)
+                                        .replay();
+
+        assertTrue(replay.passengers().isEmpty());
+        assertEquals(42, replay.lastOffset());
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.collect(Collectors.toList());
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static Passenger passenger(String id, Instant encounteredAt) {
+        return Passenger
+                .newBuilder()
+                .setId(id)
+                .setFullName("Dasher")
+                .setPassportNumber("P-" + id)
+                .setNationality("Nord")
+                .setPassportCountry("Breton")
+                .setFlightNumber("SA-42")
+                .setStatus(Passenger.Status.PASSED)
+                .setEncounteredAt(encounteredAt)
+                .build();
+    }
+
+    private static ImmutableList<String> idsOf(List<Passenger> passengers) {
+        return passengers.stream()
+                         .map(Passenger::id)
+                         .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -26,10 +26,14 @@
 
 package io.spine.example.airport.tl;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.spine.example.airport.tl.passengers.PassengerClient;
+import io.spine.example.airport.tl.passengers.PassengerFeedClient;
 import io.spine.example.airport.tl.supplies.SuppliesEventConsumer;
+import io.spine.example.airport.tl.weather.WeatherFeedClient;
 import io.spine.example.airport.tl.weather.WeatherUpdateClient;
 import io.spine.net.Url;
 import io.spine.server.BoundedContext;
@@ -51,7 +55,11 @@ final class TakeoffsAndLandingsService {
             .newBuilder()
             .setSpec("http://localhost:8282")
             .build();
+    private static final int SECURITY_FEED_PORT = 8283;
     private static final int SUPPLIES_PORT = 4545;
+    private static final String FLIGHTS_PROPERTY = "airport.flights";
+    private static final String WEATHER_POLLING_PROPERTY = "airport.weather.polling";
+    private static final String SECURITY_POLLING_PROPERTY = "airport.security.polling";
 
     /**
      * Prevents the utility class instantiation.
@@ -69,9 +77,9 @@ final class TakeoffsAndLandingsService {
                 .addService(subscriptionService(context))
                 .build();
         container.start();
-        WeatherUpdateClient weatherClient = connectToWeather();
+        PollingClient weatherClient = connectToWeather();
         SuppliesEventConsumer suppliesEventConsumer = connectToSupplies();
-        PassengerClient passengerClient = connectToSecurity();
+        PollingClient passengerClient = connectToSecurity();
         Tower tower = connectToTower(context, queryService);
 
         container.awaitTermination();
@@ -92,18 +100,54 @@ final class TakeoffsAndLandingsService {
         return consumer;
     }
 
-    private static WeatherUpdateClient connectToWeather() {
-        WeatherUpdateClient weatherClient = new WeatherUpdateClient(WEATHER_SERVICE);
+    /**
+     * Starts receiving the weather updates from the {@code Weather} system.
+     *
+     * <p>By default, the updates are received from the event stream as soon as they are
+     * measured. If the {@code airport.weather.polling} property is set to {@code true},
+     * the {@code Weather} system is polled for the updates instead.
+     */
+    private static PollingClient connectToWeather() {
+        PollingClient weatherClient = Boolean.getBoolean(WEATHER_POLLING_PROPERTY)
+                                      ? new WeatherUpdateClient(WEATHER_SERVICE)
+                                      : new WeatherFeedClient(WEATHER_SERVICE);
         start(weatherClient);
         return weatherClient;
     }
 
-    private static PassengerClient connectToSecurity() {
-        PassengerClient passengerClient = new PassengerClient(SECURITY_SERVICE);
+    /**
+     * Starts receiving the passenger changes from the {@code Security Checks} system.
+     *
+     * <p>By default, the changes are received from the passenger feed as soon as they happen.
+     * If the {@code airport.security.polling} property is set to {@code true}, the {@code Security
+     * Checks} system is polled for the passengers instead.
+     *
+     * <p>If the {@code airport.flights} property is set to a comma-separated list of flight
+     * numbers, only the passengers of those flights are received.
+     */
+    private static PollingClient connectToSecurity() {
+        String flights = System.getProperty(FLIGHTS_PROPERTY, "");
+        ImmutableSet<String> flightNumbers = ImmutableSet.copyOf(
+                Splitter.on(',')
+                        .trimResults()
+                        .omitEmptyStrings()
+                        .split(flights)
+        );
+        PollingClient passengerClient = Boolean.getBoolean(SECURITY_POLLING_PROPERTY)
+                                        ? new PassengerClient(SECURITY_SERVICE, flightNumbers)
+                                        : new PassengerFeedClient(securityFeed(), flightNumbers);
         start(passengerClient);
         return passengerClient;
     }
 
+    private static ManagedChannel securityFeed() {
+        return NettyChannelBuilder
+                .forAddress("localhost", SECURITY_FEED_PORT)
+                .usePlaintext()
+                .executor(commonPool())
+                .build();
+    }
+
     private static Tower connectToTower(BoundedContext context,
                                         QueryService queryService) {
         AirportCode code = AirportCode
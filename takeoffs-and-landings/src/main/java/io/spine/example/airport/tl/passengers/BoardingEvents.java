@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.tl.passengers;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.spine.core.UserId;
+import io.spine.example.airport.security.PassengerBoarded;
+import io.spine.example.airport.security.PassengerDeniedBoarding;
+import io.spine.example.airport.tl.FlightId;
+import io.spine.server.integration.ThirdPartyContext;
+
+import static io.spine.example.airport.tl.passengers.BoardingStatus.BOARDED;
+import static io.spine.example.airport.tl.passengers.BoardingStatus.WILL_NOT_BE_BOARDED;
+import static io.spine.server.integration.ThirdPartyContext.singleTenant;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Publishes the boarding events for the passengers received from
+ * the {@code Security Checks} system.
+ *
+ * <p>The same version of a passenger record may be received several times. The events are
+ * emitted only for the versions which have not been seen yet.
+ */
+final class BoardingEvents implements AutoCloseable {
+
+    private static final UserId ACTOR = UserId
+            .newBuilder()
+            .setValue("TSA")
+            .build();
+
+    private final ThirdPartyContext securityContext = singleTenant("Security");
+    private final Cache<String, Long> emittedVersions = CacheBuilder
+            .newBuilder()
+            .expireAfterWrite(2, HOURS)
+            .build();
+
+    void emitIfStatusKnown(TsaPassenger tsaPassenger) {
+        if (!isNewVersion(tsaPassenger)) {
+            return;
+        }
+        BoardingStatus status = tsaPassenger.boardingStatus();
+        if (status == BOARDED) {
+            emitBoarded(tsaPassenger);
+        } else if (status == WILL_NOT_BE_BOARDED) {
+            emitDenied(tsaPassenger);
+        }
+        emittedVersions.put(tsaPassenger.getId(), tsaPassenger.getVersion());
+    }
+
+    private boolean isNewVersion(TsaPassenger tsaPassenger) {
+        Long emitted = emittedVersions.getIfPresent(tsaPassenger.getId());
+        return emitted == null || tsaPassenger.getVersion() > emitted;
+    }
+
+    private void emitDenied(TsaPassenger tsaPassenger) {
+        PassengerId id = PassengerId
+                .newBuilder()
+                .setValue(tsaPassenger.getId())
+                .build();
+        FlightId flight = FlightId
+                .newBuilder()
+                .setUuid(tsaPassenger.getFlightNumber())
+                .build();
+        PassengerDeniedBoarding event = PassengerDeniedBoarding
+                .newBuilder()
+                .setId(id)
+                .setFlight(flight)
+                .vBuild();
+        securityContext.emittedEvent(event, ACTOR);
+    }
+
+    private void emitBoarded(TsaPassenger tsaPassenger) {
+        PassengerId id = PassengerId
+                .newBuilder()
+                .setValue(tsaPassenger.getId())
+                .build();
+        FlightId flight = FlightId
+                .newBuilder()
+                .setUuid(tsaPassenger.getFlightNumber())
+                .build();
+        PassengerBoarded event = PassengerBoarded
+                .newBuilder()
+                .setId(id)
+                .setFlight(flight)
+                .vBuild();
+        securityContext.emittedEvent(event, ACTOR);
+    }
+
+    @Override
+    public void close() throws Exception {
+        securityContext.close();
+    }
+}
@@ -26,54 +26,81 @@
 
 package io.spine.example.airport.tl.passengers;
 
-import io.spine.core.UserId;
-import io.spine.example.airport.security.PassengerBoarded;
-import io.spine.example.airport.security.PassengerDeniedBoarding;
-import io.spine.example.airport.tl.FlightId;
+import com.google.common.collect.ImmutableSet;
 import io.spine.example.airport.tl.PollingClient;
-import io.spine.json.Json;
 import io.spine.logging.Logging;
 import io.spine.net.Url;
-import io.spine.server.integration.ThirdPartyContext;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
-import static io.spine.example.airport.tl.passengers.BoardingStatus.BOARDED;
-import static io.spine.example.airport.tl.passengers.BoardingStatus.WILL_NOT_BE_BOARDED;
-import static io.spine.server.integration.ThirdPartyContext.singleTenant;
-import static java.lang.String.format;
 import static java.time.Duration.ofHours;
 import static java.time.Duration.ofSeconds;
 
 /**
  * A client of the {@code Security Checks} system.
  *
- * <p>Pulls the data about passengers who have passed the security check.
+ * <p>Pulls the data about passengers who have passed the security check. The passengers are
+ * requested page by page, so that neither side holds all of them in memory.
+ *
+ * <p>If the client is created for particular flights, only the passengers of those flights
+ * are requested.
+ *
+ * <p>The same version of a passenger record is received with every request until it falls
+ * out of the requested period. The events are {@linkplain BoardingEvents emitted} only for
+ * the versions which have not been seen.
+ *
+ * <p>The responses are compressed by the server with gzip. OkHttp asks for it and decompresses
+ * the bodies transparently as long as the {@code Accept-Encoding} header is not set explicitly.
  */
 public final class PassengerClient implements PollingClient, Logging {
 
     private static final Duration HALF_A_MINUTE = ofSeconds(30);
-    private static final UserId ACTOR = UserId
-            .newBuilder()
-            .setValue("TSA")
-            .build();
+    private static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
+    private static final String NEXT_TOKEN_HEADER = "X-Next-Token";
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * The passenger fields used by the client.
+     *
+     * <p>The personal data of the passengers is not requested.
+     */
+    private static final String FIELDS = "id,flightNumber,status,encounteredAt,version";
 
     private final Url securityService;
     private final OkHttpClient client;
-    private final ThirdPartyContext securityContext;
+    private final BoardingEvents events = new BoardingEvents();
+    private final ImmutableSet<String> flights;
     private volatile boolean active;
 
+    /**
+     * Creates a new client which pulls the passengers of all the flights.
+     */
     public PassengerClient(Url service) {
+        this(service, ImmutableSet.of());
+    }
+
+    /**
+     * Creates a new client which pulls the passengers of the given flights.
+     *
+     * @param service
+     *         the URL of the {@code Security Checks} system
+     * @param flights
+     *         the numbers of the flights; if empty, the passengers of all the flights are pulled
+     */
+    public PassengerClient(Url service, ImmutableSet<String> flights) {
         this.securityService = checkNotNull(service);
-        this.securityContext = singleTenant("Security");
+        this.flights = checkNotNull(flights);
         this.client = new OkHttpClient();
         this.active = true;
     }
@@ -82,10 +109,8 @@ public final class PassengerClient implements PollingClient, Logging {
     // #docfragment "Fetch passengers"
     public void start() {
         while (active) {
-            Request request = requestPassengers();
             try {
-                List<TsaPassenger> passengers = fetchPassengers(request);
-                passengers.forEach(this::emitIfStatusKnown);
+                fetchPassengers();
             } catch (IOException e) {
                 _warn().withCause(e)
                        .log();
@@ -94,77 +119,67 @@ public final class PassengerClient implements PollingClient, Logging {
         }
     }
 
-    private void emitIfStatusKnown(TsaPassenger tsaPassenger) {
-        BoardingStatus status = tsaPassenger.boardingStatus();
-        if (status == BOARDED) {
-            emitBoarded(tsaPassenger);
-        } else if (status == WILL_NOT_BE_BOARDED) {
-            emitDenied(tsaPassenger);
-        }
-    }
-    // #enddocfragment "Fetch passengers"
-
-    private Request requestPassengers() {
+    /**
+     * Fetches the passengers of the last hour page by page and emits the events for them.
+     *
+     * <p>Only one page is kept in memory at a time.
+     */
+    private void fetchPassengers() throws IOException {
         Instant now = Instant.now();
         Instant anHourAgo = now.minus(ofHours(1));
-        String url = format("%s/passenger?since=%s&upto=%s",
-                            securityService.getSpec(),
-                            anHourAgo.getEpochSecond(),
-                            now.getEpochSecond());
-        Request request = new Request.Builder()
-                .get()
-                .url(url)
-                .build();
-        return request;
-    }
-
-    private void emitDenied(TsaPassenger tsaPassenger) {
-        PassengerId id = PassengerId
-                .newBuilder()
-                .setValue(tsaPassenger.getId())
-                .build();
-        FlightId flight = FlightId
-                .newBuilder()
-                .setUuid(tsaPassenger.getFlightNumber())
-                .build();
-        PassengerDeniedBoarding event = PassengerDeniedBoarding
-                .newBuilder()
-                .setId(id)
-                .setFlight(flight)
-                .vBuild();
-        securityContext.emittedEvent(event, ACTOR);
+        @Nullable String token = null;
+        do {
+            Request request = requestPage(anHourAgo, now, token);
+            token = fetchPage(request);
+        } while (active && token != null);
     }
 
-    private void emitBoarded(TsaPassenger tsaPassenger) {
-        PassengerId id = PassengerId
-                .newBuilder()
-                .setValue(tsaPassenger.getId())
-                .build();
-        FlightId flight = FlightId
+    private Request requestPage(Instant since, Instant upto, @Nullable String token) {
+        HttpUrl.Builder url = HttpUrl
+                .get(securityService.getSpec())
                 .newBuilder()
-                .setUuid(tsaPassenger.getFlightNumber())
+                .addPathSegment("passenger")
+                .addQueryParameter("since", String.valueOf(since.getEpochSecond()))
+                .addQueryParameter("upto", String.valueOf(upto.getEpochSecond()))
+                .addQueryParameter("limit", String.valueOf(PAGE_SIZE))
+                .addQueryParameter("fields", FIELDS);
+        for (String flight : flights) {
+            url.addQueryParameter("flight", flight);
+        }
+        if (token != null) {
+            url.addQueryParameter("token", token);
+        }
+        Request request = new Request.Builder()
+                .get()
+                .url(url.build())
+                .header("Accept", PROTOBUF_CONTENT_TYPE)
                 .build();
-        PassengerBoarded event = PassengerBoarded
-                .newBuilder()
-                .setId(id)
-                .setFlight(flight)
-                .vBuild();
-        securityContext.emittedEvent(event, ACTOR);
+        return request;
     }
 
-    private List<TsaPassenger> fetchPassengers(Request request) throws IOException {
-        ResponseBody body = client.newCall(request)
-                                  .execute()
-                                  .body();
-        checkNotNull(body);
-        String jsonResponse = body.string();
-        TsaPassengers passengers = Json.fromJson(jsonResponse, TsaPassengers.class);
-        return passengers.getPassengerList();
+    /**
+     * Reads the passengers of a page one by one and emits the events for them.
+     *
+     * @return the token of the next page or {@code null} if this page is the last one
+     */
+    private @Nullable String fetchPage(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            checkNotNull(body);
+            InputStream stream = body.byteStream();
+            TsaPassenger passenger = TsaPassenger.parseDelimitedFrom(stream);
+            while (passenger != null) {
+                events.emitIfStatusKnown(passenger);
+                passenger = TsaPassenger.parseDelimitedFrom(stream);
+            }
+            return response.header(NEXT_TOKEN_HEADER);
+        }
     }
+    // #enddocfragment "Fetch passengers"
 
     @Override
     public void close() throws Exception {
         active = false;
-        securityContext.close();
+        events.close();
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.tl.passengers;
+
+import com.google.common.collect.ImmutableSet;
+import io.grpc.Channel;
+import io.grpc.Context;
+import io.grpc.Context.CancellableContext;
+import io.grpc.StatusRuntimeException;
+import io.spine.example.airport.tl.PollingClient;
+import io.spine.example.airport.tl.passengers.PassengerFeedGrpc.PassengerFeedBlockingStub;
+import io.spine.logging.Logging;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+
+/**
+ * A client of the {@code Security Checks} system which receives the passenger status changes
+ * as soon as they happen.
+ *
+ * <p>Unlike the {@link PassengerClient}, does not poll the {@code Security Checks} system.
+ * Instead, subscribes to the {@code PassengerFeed} gRPC service. The client receives
+ * the changes one by one, so the server never sends more than the client is able to process.
+ *
+ * <p>If the stream breaks, reconnects after a delay and resumes from the last received
+ * change without receiving the already known passengers again.
+ */
+public final class PassengerFeedClient implements PollingClient, Logging {
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final PassengerFeedBlockingStub feed;
+    private final ImmutableSet<String> flights;
+    private final BoardingEvents events = new BoardingEvents();
+    private volatile boolean running = true;
+    private volatile @Nullable CancellableContext currentCall;
+
+    /**
+     * The offset of the last received passenger record.
+     *
+     * <p>Accessed only by the thread which runs the client.
+     */
+    private long lastOffset;
+
+    /**
+     * Creates a new client.
+     *
+     * @param channel
+     *         the channel to the {@code Security Checks} system
+     * @param flights
+     *         the numbers of the flights; if empty, the passengers of all the flights are received
+     */
+    public PassengerFeedClient(Channel channel, ImmutableSet<String> flights) {
+        checkNotNull(channel);
+        this.feed = PassengerFeedGrpc.newBlockingStub(channel);
+        this.flights = checkNotNull(flights);
+    }
+
+    @Override
+    public void start() {
+        while (running) {
+            listen();
+            if (running) {
+                sleepUninterruptibly(RECONNECT_DELAY);
+            }
+        }
+    }
+
+    private void listen() {
+        PassengerFeedRequest request = PassengerFeedRequest
+                .newBuilder()
+                .setAfterOffset(lastOffset)
+                .addAllFlightNumber(flights)
+                .build();
+        CancellableContext call = Context.current()
+                                         .withCancellation();
+        currentCall = call;
+        try {
+            call.run(() -> receive(request));
+        } catch (StatusRuntimeException e) {
+            if (running) {
+                _warn().withCause(e)
+                       .log("Passenger feed interrupted.");
+            }
+        } finally {
+            call.cancel(null);
+        }
+    }
+
+    private void receive(PassengerFeedRequest request) {
+        Iterator<TsaPassenger> passengers = feed.subscribe(request);
+        while (running && passengers.hasNext()) {
+            TsaPassenger passenger = passengers.next();
+            events.emitIfStatusKnown(passenger);
+            lastOffset = passenger.getOffset();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        running = false;
+        CancellableContext call = currentCall;
+        if (call != null) {
+            call.cancel(null);
+        }
+        events.close();
+    }
+}
@@ -31,23 +31,33 @@ import io.grpc.stub.StreamObserver;
 import io.spine.base.EventMessage;
 import io.spine.core.ActorContext;
 import io.spine.core.UserId;
+import io.spine.example.airport.supplies.ResumePoint;
 import io.spine.example.airport.supplies.Subscription;
 import io.spine.example.airport.supplies.SuppliesEvent;
 import io.spine.example.airport.supplies.SuppliesEventProducerGrpc;
 import io.spine.example.airport.supplies.SuppliesEventProducerGrpc.SuppliesEventProducerStub;
 import io.spine.logging.Logging;
 import io.spine.server.integration.ThirdPartyContext;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.protobuf.AnyPacker.unpack;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static java.util.concurrent.ForkJoinPool.commonPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * A client of the {@code Airplane Supplies} context.
  *
  * <p>Receives the events published by the {@code Airplane Supplies} and broadcasts them into
  * the {@code Takeoffs and Landings} context.
+ *
+ * <p>The subscription is a long-lived stream: after the past events, the producer keeps sending
+ * the new ones as they occur.
  */
 public final class SuppliesEventConsumer implements AutoCloseable {
 
@@ -56,9 +66,11 @@ public final class SuppliesEventConsumer implements AutoCloseable {
             .newBuilder()
             .setValue(CONTEXT_NAME)
             .build();
+    private static final Duration RESUBSCRIBE_DELAY = Duration.ofSeconds(5);
 
     private final SuppliesEventProducerStub producer;
     private final ThirdPartyContext context;
+    private final ScheduledExecutorService resubscriptions = newSingleThreadScheduledExecutor();
 
     public SuppliesEventConsumer(Channel channel) {
         checkNotNull(channel);
@@ -76,6 +88,7 @@ public final class SuppliesEventConsumer implements AutoCloseable {
 
     @Override
     public void close() throws Exception {
+        resubscriptions.shutdownNow();
         context.close();
     }
 
@@ -83,11 +96,19 @@ public final class SuppliesEventConsumer implements AutoCloseable {
      * Observer of a {@link SuppliesEvent}s stream.
      *
      * <p>When the stream ends either via being completed or with an error, restarts
-     * the subscription.
+     * the subscription after a delay. The restarted subscription resumes after the last
+     * received event, so that no event is lost or received twice.
      */
     private final class Observer implements StreamObserver<SuppliesEvent>, Logging {
 
-        private final Subscription subscription;
+        private volatile Subscription subscription;
+
+        /**
+         * The position of the last received event.
+         *
+         * <p>Is {@code null} if no events are received yet.
+         */
+        private volatile @Nullable ResumePoint lastReceived;
 
         private Observer(Subscription subscription) {
             this.subscription = checkNotNull(subscription);
@@ -108,6 +129,13 @@ public final class SuppliesEventConsumer implements AutoCloseable {
                     .vBuild();
             EventMessage eventMessage = (EventMessage) unpack(event.getPayload());
             context.emittedEvent(eventMessage, actorContext);
+            lastReceived = ResumePoint
+                    .newBuilder()
+                    .setSequence(event.getSequence())
+                    .setWhenOccurred(event.getWhenOccurred())
+                    .setHandOff(event.getHandOff())
+                    .setEpoch(event.getEpoch())
+                    .build();
         }
         // #enddocfragment "onNext"
 
@@ -124,6 +152,16 @@ public final class SuppliesEventConsumer implements AutoCloseable {
         }
 
         private void restart() {
+            resubscriptions.schedule(this::resume, RESUBSCRIBE_DELAY.toMillis(), MILLISECONDS);
+        }
+
+        private void resume() {
+            ResumePoint resumeAfter = lastReceived;
+            if (resumeAfter != null) {
+                subscription = subscription.toBuilder()
+                                           .setResumeAfter(resumeAfter)
+                                           .build();
+            }
             producer.subscribe(subscription, this);
         }
     }
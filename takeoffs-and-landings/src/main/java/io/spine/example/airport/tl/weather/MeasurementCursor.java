@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.tl.weather;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * The position of a client in the measurements of the {@code Weather} system.
+ *
+ * <p>Once the client has received a measurement, it reads the measurements after the sequence
+ * number of the last received one. The sequence numbers are only comparable within the same
+ * epoch. If the epoch changes, e.g. because the {@code Weather} system has restarted with
+ * a fresh storage, the client falls back to reading the measurements taken since the time of
+ * the last received one.
+ *
+ * <p>The time cursor is precise to a second, so reading by time may return the measurements
+ * which have already been received. The cursor tells such measurements from the new ones.
+ *
+ * <p>The cursor is not thread-safe.
+ */
+final class MeasurementCursor {
+
+    private Instant lastMeasured;
+    private @Nullable Long epoch;
+    private long sequence;
+
+    /**
+     * Creates a cursor which starts with the measurements taken since the given time.
+     */
+    MeasurementCursor(Instant since) {
+        this.lastMeasured = checkNotNull(since);
+    }
+
+    /**
+     * Obtains the query parameters which select the measurements after this cursor.
+     */
+    String query() {
+        Long epoch = this.epoch;
+        return epoch == null
+               ? "since=" + lastMeasured.getEpochSecond()
+               : format("after=%d&epoch=%d", sequence, epoch);
+    }
+
+    /**
+     * Checks if the cursor reads by the sequence numbers rather than by time.
+     */
+    boolean isPaged() {
+        return epoch != null;
+    }
+
+    /**
+     * Moves the cursor to the given received measurement.
+     *
+     * @param epoch
+     *         the epoch of the sequence numbers reported by the {@code Weather} system
+     * @param sequence
+     *         the sequence number of the measurement
+     * @param whenMeasured
+     *         the time of the measurement
+     * @return {@code true} if the measurement has not been received before
+     */
+    boolean advance(long epoch, long sequence, Instant whenMeasured) {
+        checkNotNull(whenMeasured);
+        Long knownEpoch = this.epoch;
+        boolean isNew = knownEpoch != null && knownEpoch == epoch
+                        ? sequence > this.sequence
+                        : whenMeasured.isAfter(lastMeasured);
+        this.epoch = epoch;
+        this.sequence = sequence;
+        if (whenMeasured.isAfter(lastMeasured)) {
+            lastMeasured = whenMeasured;
+        }
+        return isNew;
+    }
+
+    /**
+     * Makes the cursor read by time, as the sequence numbers known to it are no longer valid.
+     */
+    void reset() {
+        epoch = null;
+        sequence = 0;
+    }
+}
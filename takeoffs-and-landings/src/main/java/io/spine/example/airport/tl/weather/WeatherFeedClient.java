@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.airport.tl.weather;
+
+import com.google.gson.Gson;
+import io.spine.example.airport.tl.PollingClient;
+import io.spine.logging.Logging;
+import io.spine.net.Url;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+
+/**
+ * A client of the {@code Weather} monitoring system which receives the weather updates
+ * as soon as they are measured.
+ *
+ * <p>Unlike the {@link WeatherUpdateClient}, does not poll the {@code Weather} system.
+ * Instead, listens to the server-sent event stream of the new measurements and publishes
+ * each of them into the system upon arrival. If the stream breaks or is rejected, reconnects
+ * after a delay and resumes the stream after the last received measurement, so that
+ * the measurements taken while the client was disconnected are not lost. The position in
+ * the stream is tracked in the same way as the {@link WeatherUpdateClient} does it,
+ * by a {@link MeasurementCursor}.
+ */
+public final class WeatherFeedClient implements PollingClient, Logging {
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    /**
+     * The maximum time to wait for the next message in the stream.
+     *
+     * <p>Must be longer than the heartbeat period of the {@code Weather} system.
+     */
+    private static final Duration READ_TIMEOUT = Duration.ofMinutes(1);
+    private static final String DATA_PREFIX = "data:";
+    private static final String EPOCH_HEADER = "X-Sequence-Epoch";
+    private static final int STALE_CURSOR_STATUS = 409;
+    private static final Gson parser = new Gson();
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .readTimeout(READ_TIMEOUT)
+            .build();
+    private final WeatherUpdateEndpoint endpoint = new WeatherUpdateEndpoint();
+    private final Url weatherService;
+    private final MeasurementCursor cursor;
+    private volatile boolean running = true;
+    private volatile @Nullable Call currentCall;
+
+    public WeatherFeedClient(Instant lastEventTime, Url weatherService) {
+        this.cursor = new MeasurementCursor(lastEventTime);
+        this.weatherService = checkNotNull(weatherService);
+    }
+
+    public WeatherFeedClient(Url weatherService) {
+        this(Instant.now(), weatherService);
+    }
+
+    @Override
+    public void start() {
+        while (running) {
+            boolean reconnectNow = listen();
+            if (running && !reconnectNow) {
+                sleepUninterruptibly(RECONNECT_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Listens to the event stream until it breaks.
+     *
+     * @return {@code true} if the stream was rejected because the cursor is stale, and
+     *         the client should reconnect right away
+     */
+    private boolean listen() {
+        Request stream = new Request.Builder()
+                .get()
+                .url(weatherService.getSpec() + "/events/stream?" + cursor.query())
+                .build();
+        Call call = client.newCall(stream);
+        currentCall = call;
+        try (Response response = call.execute()) {
+            if (response.code() == STALE_CURSOR_STATUS) {
+                _warn().log("Weather measurement cursor is stale, resuming by time.");
+                cursor.reset();
+                return true;
+            }
+            if (!response.isSuccessful()) {
+                _warn().log("Weather event stream rejected with `%d %s`.",
+                            response.code(), response.message());
+                return false;
+            }
+            String epochHeader = response.header(EPOCH_HEADER);
+            checkNotNull(epochHeader);
+            long epoch = Long.parseLong(epochHeader);
+            ResponseBody body = response.body();
+            checkNotNull(body);
+            BufferedSource source = body.source();
+            String line = source.readUtf8Line();
+            while (running && line != null) {
+                if (line.startsWith(DATA_PREFIX)) {
+                    String json = line.substring(DATA_PREFIX.length());
+                    receive(epoch, json);
+                }
+                line = source.readUtf8Line();
+            }
+        } catch (IOException e) {
+            if (running) {
+                _warn().withCause(e)
+                       .log("Weather event stream interrupted.");
+            }
+        }
+        return false;
+    }
+
+    private void receive(long epoch, String json) {
+        StreamPosition position = parser.fromJson(json, StreamPosition.class);
+        if (cursor.advance(epoch, position.sequence, position.whenMeasured())) {
+            endpoint.receiveNew(WeatherMeasurement.fromJson(json));
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        running = false;
+        Call call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+        endpoint.close();
+    }
+
+    /**
+     * The fields of a measurement event which tell its position in the stream.
+     */
+    @SuppressWarnings("unused") // Fields are set by Gson.
+    private static final class StreamPosition {
+
+        private long sequence;
+        private @Nullable EpochTime whenMeasured;
+
+        private Instant whenMeasured() {
+            checkNotNull(whenMeasured);
+            return Instant.ofEpochSecond(whenMeasured.seconds, whenMeasured.nanos);
+        }
+    }
+
+    /**
+     * The time of a measurement as encoded in the event stream.
+     */
+    @SuppressWarnings("unused") // Fields are set by Gson.
+    private static final class EpochTime {
+
+        private long seconds;
+        private int nanos;
+    }
+}
@@ -31,6 +31,7 @@ import com.google.gson.Gson;
 import io.spine.example.airport.tl.Temperature;
 import io.spine.example.airport.tl.WindSpeed;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.util.Preconditions2.checkNotEmptyOrBlank;
 
 public final class WeatherMeasurement {
@@ -54,6 +55,16 @@ public final class WeatherMeasurement {
         return measurement;
     }
 
+    /**
+     * Converts the given measurement received from the {@code Weather} system.
+     */
+    public static WeatherMeasurement fromMessage(MeteoMeasurement message) {
+        checkNotNull(message);
+        return new WeatherMeasurement(message.getWindSpeed(),
+                                      message.getWindDirection(),
+                                      message.getTemperature());
+    }
+
     public static WeatherMeasurement unknown() {
         return unknownWeather;
     }
@@ -26,36 +26,55 @@
 
 package io.spine.example.airport.tl.weather;
 
+import com.google.protobuf.Timestamp;
 import io.spine.example.airport.tl.PollingClient;
 import io.spine.logging.Logging;
 import io.spine.net.Url;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.ResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.lang.String.format;
 
 /**
  * A client of the {@code Weather} monitoring system.
  *
  * <p>Pulls and publishes the weather updates into the system.
+ *
+ * <p>The first requests ask for the measurements taken since the given time. As soon as
+ * the client receives a measurement, it switches to reading the measurements after the last
+ * received one by its sequence number, so that each measurement is received exactly once.
+ * If the {@code Weather} system rejects the sequence number as belonging to another epoch,
+ * the client goes back to reading the measurements taken since the last received one.
+ * See {@link MeasurementCursor} for details. If the request fails otherwise, the client retries
+ * it with the next poll.
+ *
+ * <p>The responses are compressed by the server with gzip. OkHttp asks for it and decompresses
+ * the bodies transparently as long as the {@code Accept-Encoding} header is not set explicitly.
  */
 public class WeatherUpdateClient implements PollingClient, Logging {
 
     private static final Duration REQUEST_FREQUENCY = Duration.ofSeconds(5);
+    private static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
+    private static final String EPOCH_HEADER = "X-Sequence-Epoch";
+    private static final int STALE_CURSOR_STATUS = 409;
+    private static final int PAGE_SIZE = 1000;
     private final OkHttpClient client = new OkHttpClient();
     private final WeatherUpdateEndpoint endpoint = new WeatherUpdateEndpoint();
     private final Url weatherService;
-    private Instant lastEventTime;
+    private final MeasurementCursor cursor;
     private volatile boolean running = true;
 
     public WeatherUpdateClient(Instant lastEventTime, Url weatherService) {
-        this.lastEventTime = checkNotNull(lastEventTime);
+        this.cursor = new MeasurementCursor(lastEventTime);
         this.weatherService = checkNotNull(weatherService);
     }
 
@@ -72,27 +91,66 @@ public class WeatherUpdateClient implements PollingClient, Logging {
     }
 
     private void fetchWeatherUpdates() {
-        Instant lastEvent = lastEventTime;
-        lastEventTime = Instant.now();
+        boolean mayHaveMore = true;
+        while (running && mayHaveMore) {
+            mayHaveMore = fetchPage();
+        }
+    }
+
+    /**
+     * Fetches the next portion of the measurements.
+     *
+     * @return {@code true} if the portion was full and there may be more measurements to fetch
+     */
+    private boolean fetchPage() {
+        boolean paged = cursor.isPaged();
         Request getEvents = new Request.Builder()
                 .get()
-                .url(weatherService.getSpec() + "/events?since=" + lastEvent.getEpochSecond())
+                .url(eventsUrl())
+                .header("Accept", PROTOBUF_CONTENT_TYPE)
                 .build();
-        try {
-            ResponseBody responseBody = client.newCall(getEvents)
-                                              .execute()
-                                              .body();
+        try (Response response = client.newCall(getEvents).execute()) {
+            if (response.code() == STALE_CURSOR_STATUS) {
+                _warn().log("Weather measurement cursor is stale, resuming by time.");
+                cursor.reset();
+                return true;
+            }
+            if (!response.isSuccessful()) {
+                logger().atSevere()
+                        .log("Weather service responded with `%d %s`.",
+                             response.code(), response.message());
+                return false;
+            }
+            String epochHeader = response.header(EPOCH_HEADER);
+            checkNotNull(epochHeader);
+            long epoch = Long.parseLong(epochHeader);
+            ResponseBody responseBody = response.body();
             checkNotNull(responseBody);
-            String responseJson = responseBody.string();
-            WeatherMeasurement measurement = WeatherMeasurement.fromJson(responseJson);
-            endpoint.receiveNew(measurement);
+            InputStream stream = responseBody.byteStream();
+            int received = 0;
+            MeteoMeasurement message = MeteoMeasurement.parseDelimitedFrom(stream);
+            while (message != null) {
+                Timestamp time = message.getWhenMeasured();
+                Instant whenMeasured = Instant.ofEpochSecond(time.getSeconds(), time.getNanos());
+                if (cursor.advance(epoch, message.getSequence(), whenMeasured)) {
+                    endpoint.receiveNew(WeatherMeasurement.fromMessage(message));
+                }
+                received++;
+                message = MeteoMeasurement.parseDelimitedFrom(stream);
+            }
+            return paged && received == PAGE_SIZE;
         } catch (IOException e) {
             logger().atSevere()
                     .withCause(e)
                     .log();
+            return false;
         }
     }
 
+    private String eventsUrl() {
+        return format("%s/events?%s&limit=%d", weatherService.getSpec(), cursor.query(), PAGE_SIZE);
+    }
+
     @Override
     public void close() throws Exception {
         running = false;
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static io.spine.example.weather.StorageKind.measurement;
+import static io.spine.example.weather.StorageKind.timeOf;
+
+/**
+ * Measures {@link MeasurementRepository} under a single writer which keeps storing new
+ * measurements and several readers which query the latest ones, as the weather station and
+ * the HTTP clients do.
+ *
+ * <p>JMH reports the writer ({@code write}) and the readers ({@code readLatest} and
+ * {@code readAfter}) separately, so the effect of the readers on the writer is visible.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentRepositoryBenchmark {
+
+    /**
+     * The number of the latest measurements requested by a reader.
+     */
+    private static final int WINDOW = 100;
+
+    @Param({"100000"})
+    private int historySize;
+
+    @Param({"HEAP", "RING", "JOURNAL"})
+    private StorageKind storage;
+
+    private Path directory;
+    private MeasurementRepository repository;
+
+    /**
+     * The number of the measurements stored so far.
+     *
+     * <p>Written by the writer thread only.
+     */
+    private volatile long stored;
+
+    @Setup(Level.Iteration)
+    public void fillRepository() throws IOException {
+        directory = StorageKind.newDirectory();
+        repository = new MeasurementRepository(storage.create(directory));
+        for (long i = 0; i < historySize; i++) {
+            repository.store(measurement(i));
+        }
+        stored = historySize;
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteFiles() throws IOException {
+        repository = null;
+        StorageKind.delete(directory);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write() {
+        long number = stored;
+        repository.store(measurement(number));
+        stored = number + 1;
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(2)
+    public Measurements readLatest() {
+        Instant end = timeOf(stored);
+        return repository.between(end.minusMillis(WINDOW), end);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(2)
+    public Measurements readAfter() {
+        return repository.after(stored - WINDOW, WINDOW);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.spine.example.weather.StorageKind.measurement;
+import static io.spine.example.weather.StorageKind.timeOf;
+
+/**
+ * Measures the single-threaded performance of {@link MeasurementRepository} depending on
+ * the kind of the storage and the number of the measurements already stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    /**
+     * The number of the measurements returned by a single {@code between} query.
+     */
+    private static final int WINDOW = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int historySize;
+
+    @Param({"HEAP", "RING", "JOURNAL"})
+    private StorageKind storage;
+
+    private Path directory;
+    private MeasurementRepository repository;
+    private long next;
+
+    /**
+     * Fills a new repository for each iteration, so that the history stored by
+     * the {@link #store()} benchmark does not grow without bounds.
+     */
+    @Setup(Level.Iteration)
+    public void fillRepository() throws IOException {
+        directory = StorageKind.newDirectory();
+        repository = new MeasurementRepository(storage.create(directory));
+        for (next = 0; next < historySize; next++) {
+            repository.store(measurement(next));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteFiles() throws IOException {
+        repository = null;
+        StorageKind.delete(directory);
+    }
+
+    @Benchmark
+    public void store() {
+        repository.store(measurement(next++));
+    }
+
+    @Benchmark
+    public Measurements between() {
+        long first = ThreadLocalRandom.current()
+                                      .nextLong(historySize - WINDOW);
+        Instant start = timeOf(first);
+        return repository.between(start, start.plusMillis(WINDOW));
+    }
+}
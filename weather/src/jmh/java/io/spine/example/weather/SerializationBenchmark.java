@@ -0,0 +1,235 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.protobuf.CodedInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures the serialization of the measurements served by {@code /events}.
+ *
+ * <p>All the benchmarks serialize or parse the same batch of measurements and report the time
+ * and, with the GC profiler, the bytes allocated ({@code gc.alloc.rate.norm}) per measurement.
+ *
+ * <p>{@code measurementsToJson} is how {@code /events} was served before the streaming writer:
+ * Spark called {@code toString()} of the response. {@code writeJson} is how it is served now.
+ *
+ * <p>The parse benchmarks read the batch the way the clients do: the JSON with Gson into
+ * a plain class, and the Protobuf as length-delimited {@code MeteoMeasurement} messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int WIND_SPEED_FIELD = 1;
+    private static final int WIND_DIRECTION_FIELD = 2;
+    private static final int TEMPERATURE_FIELD = 3;
+    private static final int WHEN_MEASURED_FIELD = 4;
+    private static final int SEQUENCE_FIELD = 5;
+
+    private static final int SECONDS_FIELD = 1;
+    private static final int NANOS_FIELD = 2;
+
+    private final OutputStream out = ByteStreams.nullOutputStream();
+    private final Gson gson = new Gson();
+    private Measurements measurements;
+    private byte[] json;
+    private byte[] proto;
+
+    @Setup
+    public void takeMeasurements() throws IOException {
+        MeteoLab lab = MeteoLab.seeded(42);
+        ImmutableList.Builder<io.spine.example.weather.Measurement> batch =
+                ImmutableList.builder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(lab.measure()
+                         .withSequence(i + 1));
+        }
+        measurements = new Measurements(batch.build());
+        ByteArrayOutputStream jsonBytes = new ByteArrayOutputStream();
+        measurements.writeJsonTo(jsonBytes);
+        json = jsonBytes.toByteArray();
+        ByteArrayOutputStream protoBytes = new ByteArrayOutputStream();
+        measurements.writeProtoTo(protoBytes);
+        proto = protoBytes.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public String measurementsToJson() {
+        return measurements.toJson();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void measurementToJson(Blackhole blackhole) {
+        for (io.spine.example.weather.Measurement m : measurements.measurements()) {
+            blackhole.consume(m.toJson());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void writeJson() throws IOException {
+        measurements.writeJsonTo(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void writeProto() throws IOException {
+        measurements.writeProtoTo(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<ParsedMeasurement> parseJson() {
+        InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(json), UTF_8);
+        return gson.fromJson(reader, ParsedBatch.class).measurements;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void parseProto(Blackhole blackhole) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(proto);
+        while (!input.isAtEnd()) {
+            int limit = input.pushLimit(input.readRawVarint32());
+            blackhole.consume(readMeasurement(input));
+            input.popLimit(limit);
+        }
+    }
+
+    /**
+     * Reads the fields of a {@code MeteoMeasurement} message up to the current limit.
+     */
+    private static ParsedMeasurement readMeasurement(CodedInputStream input) throws IOException {
+        ParsedMeasurement measurement = new ParsedMeasurement();
+        int tag = input.readTag();
+        while (tag != 0) {
+            switch (tag >>> 3) {
+                case WIND_SPEED_FIELD:
+                    measurement.windSpeed = input.readFloat();
+                    break;
+                case WIND_DIRECTION_FIELD:
+                    measurement.windDirection = input.readFloat();
+                    break;
+                case TEMPERATURE_FIELD:
+                    measurement.temperature = input.readFloat();
+                    break;
+                case WHEN_MEASURED_FIELD:
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    measurement.whenMeasured = readTimestamp(input);
+                    input.popLimit(limit);
+                    break;
+                case SEQUENCE_FIELD:
+                    measurement.sequence = input.readUInt64();
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+            tag = input.readTag();
+        }
+        return measurement;
+    }
+
+    private static ParsedTimestamp readTimestamp(CodedInputStream input) throws IOException {
+        ParsedTimestamp timestamp = new ParsedTimestamp();
+        int tag = input.readTag();
+        while (tag != 0) {
+            switch (tag >>> 3) {
+                case SECONDS_FIELD:
+                    timestamp.seconds = input.readInt64();
+                    break;
+                case NANOS_FIELD:
+                    timestamp.nanos = input.readInt32();
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+            tag = input.readTag();
+        }
+        return timestamp;
+    }
+
+    /**
+     * The JSON response as seen by a client.
+     */
+    private static final class ParsedBatch {
+
+        private List<ParsedMeasurement> measurements;
+    }
+
+    /**
+     * A measurement as seen by a client.
+     */
+    public static final class ParsedMeasurement {
+
+        private float windSpeed;
+        private float windDirection;
+        private float temperature;
+        private ParsedTimestamp whenMeasured;
+        private long sequence;
+    }
+
+    /**
+     * The time of a measurement as seen by a client.
+     */
+    private static final class ParsedTimestamp {
+
+        private long seconds;
+        private int nanos;
+    }
+}
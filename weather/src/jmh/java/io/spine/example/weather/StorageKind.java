@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * The kinds of {@link MeasurementStorage} compared by the benchmarks.
+ *
+ * <p>Is public, as JMH sets the benchmark parameters from the generated code in another package.
+ */
+public enum StorageKind {
+
+    HEAP {
+        @Override
+        MeasurementStorage create(Path directory) {
+            return new SkipListStorage();
+        }
+    },
+    RING {
+        @Override
+        MeasurementStorage create(Path directory) {
+            return RingBufferStorage.retainingLast(RING_CAPACITY);
+        }
+    },
+    JOURNAL {
+        @Override
+        MeasurementStorage create(Path directory) {
+            return MeasurementJournal.open(directory);
+        }
+    };
+
+    private static final int RING_CAPACITY = 1 << 21;
+
+    /**
+     * The time of the first measurement of a benchmark history.
+     */
+    static final Instant HISTORY_START = Instant.parse("2021-01-01T00:00:00Z");
+
+    /**
+     * Creates a new empty storage.
+     *
+     * @param directory
+     *         an empty directory which the storage may use for its files
+     */
+    abstract MeasurementStorage create(Path directory);
+
+    /**
+     * Creates a new temporary directory for a storage.
+     */
+    static Path newDirectory() throws IOException {
+        return Files.createTempDirectory("weather-benchmark");
+    }
+
+    /**
+     * Deletes the directory created by {@link #newDirectory()} along with its contents.
+     */
+    static void delete(Path directory) throws IOException {
+        MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    /**
+     * Creates the measurement with the given number in a benchmark history.
+     *
+     * <p>Measurements are taken once per millisecond, starting from {@link #HISTORY_START}.
+     */
+    static Measurement measurement(long number) {
+        float value = number % 100;
+        return new Measurement(value, value * 3.6f, value - 40, timeOf(number));
+    }
+
+    /**
+     * Obtains the time of the measurement with the given number in a benchmark history.
+     */
+    static Instant timeOf(long number) {
+        return HISTORY_START.plusMillis(number);
+    }
+}
@@ -43,11 +43,34 @@ public final class Measurement implements Comparable<Measurement> {
     private final float temperature;
     private final Instant whenMeasured;
 
+    /**
+     * The sequence number assigned to the measurement when it is stored.
+     *
+     * <p>Is {@code 0} for the measurements which have not been stored yet.
+     */
+    private final long sequence;
+
     Measurement(float windSpeed, float windDirection, float temperature, Instant measured) {
+        this(windSpeed, windDirection, temperature, measured, 0);
+    }
+
+    Measurement(float windSpeed,
+                float windDirection,
+                float temperature,
+                Instant measured,
+                long sequence) {
         this.windSpeed = windSpeed;
         this.windDirection = windDirection;
         this.temperature = temperature;
         this.whenMeasured = checkNotNull(measured);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Creates a copy of this measurement with the given sequence number.
+     */
+    Measurement withSequence(long sequence) {
+        return new Measurement(windSpeed, windDirection, temperature, whenMeasured, sequence);
     }
 
     public float windSpeed() {
@@ -62,6 +85,19 @@ public final class Measurement implements Comparable<Measurement> {
         return temperature;
     }
 
+    public Instant whenMeasured() {
+        return whenMeasured;
+    }
+
+    /**
+     * Obtains the sequence number of this measurement in its storage.
+     *
+     * <p>The sequence numbers start with {@code 1} and grow with each stored measurement.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
     public boolean isIn(Instant start, Instant end) {
         checkNotNull(start);
         checkNotNull(end);
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A live feed of new weather measurements.
+ *
+ * <p>Each subscriber receives every measurement published after it has subscribed.
+ * A subscriber which falls too far behind is disconnected from the feed, so that a slow
+ * consumer never holds the publisher back.
+ */
+final class MeasurementFeed {
+
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = 1024;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Subscribes to the measurements published from now on.
+     *
+     * <p>The caller must {@linkplain Subscriber#close() close} the subscriber when it is no
+     * longer needed.
+     */
+    Subscriber subscribe() {
+        Subscriber subscriber = new Subscriber();
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Delivers the given measurement to all the current subscribers.
+     */
+    void publish(Measurement measurement) {
+        checkNotNull(measurement);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(measurement);
+        }
+    }
+
+    /**
+     * A subscriber of the measurement feed.
+     */
+    final class Subscriber implements AutoCloseable {
+
+        private final BlockingQueue<Measurement> queue =
+                new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        private volatile boolean overflowed;
+
+        private Subscriber() {
+        }
+
+        private void offer(Measurement measurement) {
+            if (!queue.offer(measurement)) {
+                overflowed = true;
+                close();
+            }
+        }
+
+        /**
+         * Waits for the next measurement.
+         *
+         * @return the next measurement or {@code null} if none has been published during
+         *         the given timeout
+         */
+        @Nullable Measurement next(Duration timeout) throws InterruptedException {
+            return queue.poll(timeout.toNanos(), NANOSECONDS);
+        }
+
+        /**
+         * Checks if this subscriber has been disconnected from the feed because it did not
+         * consume the measurements fast enough.
+         */
+        boolean isOverflowed() {
+            return overflowed;
+        }
+
+        /**
+         * Disconnects this subscriber from the feed.
+         */
+        @Override
+        public void close() {
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A {@link MeasurementStorage} which persists the measurements in an append-only journal.
+ *
+ * <p>The journal consists of the segment files of the same size. Each segment is mapped into
+ * memory and holds a fixed number of fixed-size binary records:
+ * <pre>
+ * offset  size  field
+ *      0     8  time of the measurement in nanoseconds since the epoch
+ *      8     4  wind speed
+ *     12     4  wind direction
+ *     16     4  temperature
+ *     20     4  record marker
+ * </pre>
+ *
+ * <p>The marker is written last, so a record is only considered written if its marker is
+ * in place. When a segment is full, the next one is created. The sequence number of
+ * a measurement is its record index in the journal plus one.
+ *
+ * <p>The measurements must be stored in chronological order. A measurement which was taken
+ * no later than the previously stored one is ignored. Thus, the records are sorted by time
+ * and range queries binary-search the mapped records directly.
+ *
+ * <p>Upon opening, the journal maps the existing segments and locates the end of each of them
+ * with a binary search over the record markers. This makes restarting independent of
+ * the number of the stored measurements.
+ *
+ * <p>The {@linkplain #epoch() epoch} of the sequence numbers is kept in a separate file of
+ * the journal directory. A new epoch starts when the journal is empty.
+ *
+ * <p>The data written into the mapped segments survives a restart of the process. It is
+ * flushed to the disk by the operating system.
+ *
+ * <p>The journal is safe for a single writer and multiple concurrent readers.
+ */
+final class MeasurementJournal implements MeasurementStorage {
+
+    private static final int RECORD_SIZE = 24;
+    private static final int TIME_OFFSET = 0;
+    private static final int WIND_SPEED_OFFSET = 8;
+    private static final int WIND_DIRECTION_OFFSET = 12;
+    private static final int TEMPERATURE_OFFSET = 16;
+    private static final int MARKER_OFFSET = 20;
+    private static final int MARKER = 0x4D455445;
+
+    private static final int RECORDS_PER_SEGMENT = 1 << 20;
+    private static final long SEGMENT_SIZE = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    private static final String SEGMENT_NAME_FORMAT = "measurements-%08d.seg";
+    private static final String SEGMENT_GLOB = "measurements-*.seg";
+    private static final String EPOCH_FILE = "epoch";
+    private static final String EPOCH_TEMP_FILE = "epoch.tmp";
+
+    private final Path directory;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * The number of the records written into the journal.
+     *
+     * <p>Written by the single writer only after the record is complete, so the readers never
+     * access the records beyond this number.
+     */
+    private volatile long size;
+
+    /**
+     * The epoch of the sequence numbers.
+     *
+     * <p>Is set once when the journal is opened.
+     */
+    private long epoch;
+
+    private MeasurementJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the journal in the given directory.
+     *
+     * <p>If the directory does not exist, it is created. If it already contains a journal,
+     * the previously stored measurements become available right away.
+     */
+    static MeasurementJournal open(Path directory) {
+        checkNotNull(directory);
+        MeasurementJournal journal = new MeasurementJournal(directory);
+        try {
+            Files.createDirectories(directory);
+            journal.mapExistingSegments();
+            journal.epoch = journal.loadEpoch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return journal;
+    }
+
+    private void mapExistingSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        long records = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path expected = segmentPath(i);
+            if (!files.get(i).equals(expected)) {
+                throw new IllegalStateException(
+                        format("Measurement journal segment `%s` is missing.", expected));
+            }
+            MappedByteBuffer segment = map(expected);
+            segments.add(segment);
+            int written = writtenRecords(segment);
+            records += written;
+            boolean lastSegment = i == files.size() - 1;
+            if (written < RECORDS_PER_SEGMENT && !lastSegment) {
+                throw new IllegalStateException(
+                        format("Measurement journal segment `%s` is incomplete.", expected));
+            }
+        }
+        size = records;
+    }
+
+    /**
+     * Reads the epoch of the sequence numbers from the journal directory.
+     *
+     * <p>If the journal is empty or has no epoch recorded, a new epoch is started and recorded.
+     */
+    private long loadEpoch() throws IOException {
+        Path file = directory.resolve(EPOCH_FILE);
+        if (size > 0 && Files.exists(file)) {
+            String epoch = new String(Files.readAllBytes(file), US_ASCII);
+            return Long.parseLong(epoch.trim());
+        }
+        long epoch = System.currentTimeMillis();
+        Path temp = directory.resolve(EPOCH_TEMP_FILE);
+        Files.write(temp, Long.toString(epoch).getBytes(US_ASCII));
+        Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        return epoch;
+    }
+
+    /**
+     * Finds the number of the records written into the given segment.
+     *
+     * <p>The records are written one after another, so the written ones form a prefix of
+     * the segment.
+     */
+    private static int writtenRecords(MappedByteBuffer segment) {
+        int low = 0;
+        int high = RECORDS_PER_SEGMENT;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segment.getInt(mid * RECORD_SIZE + MARKER_OFFSET) == MARKER) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Obtains the number of the measurements in the journal.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns the time the journal was started empty in milliseconds since the Unix epoch.
+     *
+     * <p>The sequence numbers survive a restart, so the epoch stays the same as long as
+     * the journal is not emptied.
+     */
+    @Override
+    public long epoch() {
+        return epoch;
+    }
+
+    @Override
+    public long lastSequence() {
+        return size;
+    }
+
+    @Override
+    @CanIgnoreReturnValue
+    public @Nullable Measurement store(Measurement measurement) {
+        checkNotNull(measurement);
+        long time = EpochNanos.of(measurement.whenMeasured());
+        long index = size;
+        if (index > 0 && time <= timeAt(index - 1)) {
+            return null;
+        }
+        MappedByteBuffer segment = segmentFor(index);
+        int position = position(index);
+        segment.putLong(position + TIME_OFFSET, time);
+        segment.putFloat(position + WIND_SPEED_OFFSET, measurement.windSpeed());
+        segment.putFloat(position + WIND_DIRECTION_OFFSET, measurement.windDirection());
+        segment.putFloat(position + TEMPERATURE_OFFSET, measurement.temperature());
+        segment.putInt(position + MARKER_OFFSET, MARKER);
+        size = index + 1;
+        return measurement.withSequence(index + 1);
+    }
+
+    private MappedByteBuffer segmentFor(long index) {
+        int segmentIndex = (int) (index / RECORDS_PER_SEGMENT);
+        if (segmentIndex == segments.size()) {
+            try {
+                segments.add(map(segmentPath(segmentIndex)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments.get(segmentIndex);
+    }
+
+    @Override
+    public ImmutableList<Measurement> between(Instant startTime, Instant endTime) {
+        checkNotNull(startTime);
+        checkNotNull(endTime);
+        long start = EpochNanos.of(startTime);
+        long end = EpochNanos.of(endTime);
+        if (start >= end) {
+            return ImmutableList.of();
+        }
+        long last = size;
+        long from = firstLaterThan(start, 0, last);
+        long to = firstLaterThan(end - 1, from, last);
+        ImmutableList.Builder<Measurement> result = ImmutableList.builder();
+        for (long i = from; i < to; i++) {
+            result.add(measurementAt(i));
+        }
+        return result.build();
+    }
+
+    @Override
+    public ImmutableList<Measurement> after(long sequence, int limit) {
+        checkArgument(limit >= 0, "Limit must not be negative.");
+        long last = size;
+        long from = Math.max(0, sequence);
+        long to = Math.min(last, from + limit);
+        ImmutableList.Builder<Measurement> result = ImmutableList.builder();
+        for (long i = from; i < to; i++) {
+            result.add(measurementAt(i));
+        }
+        return result.build();
+    }
+
+    @Override
+    public void forEachSince(Instant startTime, Consumer<Measurement> action) {
+        checkNotNull(startTime);
+        checkNotNull(action);
+        long last = size;
+        long from = firstLaterThan(EpochNanos.of(startTime) - 1, 0, last);
+        for (long i = from; i < last; i++) {
+            action.accept(measurementAt(i));
+        }
+    }
+
+    /**
+     * Finds the index of the first record in {@code [from, to)} with the time later than
+     * the given one.
+     *
+     * @return the found index or {@code to} if there is no such record
+     */
+    private long firstLaterThan(long nanos, long from, long to) {
+        long low = from;
+        long high = to;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timeAt(mid) <= nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long timeAt(long index) {
+        return segments.get(segmentIndex(index))
+                       .getLong(position(index) + TIME_OFFSET);
+    }
+
+    private Measurement measurementAt(long index) {
+        MappedByteBuffer segment = segments.get(segmentIndex(index));
+        int position = position(index);
+        return new Measurement(segment.getFloat(position + WIND_SPEED_OFFSET),
+                               segment.getFloat(position + WIND_DIRECTION_OFFSET),
+                               segment.getFloat(position + TEMPERATURE_OFFSET),
+                               EpochNanos.toInstant(segment.getLong(position + TIME_OFFSET)),
+                               index + 1);
+    }
+
+    private static int segmentIndex(long index) {
+        return (int) (index / RECORDS_PER_SEGMENT);
+    }
+
+    private static int position(long index) {
+        return (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private Path segmentPath(int segmentIndex) {
+        return directory.resolve(format(SEGMENT_NAME_FORMAT, segmentIndex));
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+            return channel.map(READ_WRITE, 0, SEGMENT_SIZE);
+        }
+    }
+}
@@ -26,36 +26,146 @@
 
 package io.spine.example.weather;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.spine.example.weather.WeatherRollups.Granularity;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.time.Instant;
-import java.util.NavigableSet;
-import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.ImmutableList.toImmutableList;
-import static java.util.Collections.synchronizedNavigableSet;
+import static com.google.common.flogger.FluentLogger.forEnclosingClass;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
+/**
+ * A repository of the weather measurements.
+ */
 final class MeasurementRepository {
 
-    private final NavigableSet<Measurement> measurements =
-            synchronizedNavigableSet(new TreeSet<>());
+    private static final FluentLogger log = forEnclosingClass();
+
+    private final MeasurementStorage storage;
+    private final WeatherRollups rollups = new WeatherRollups();
+
+    /**
+     * Creates a new repository which keeps the measurements in the given storage.
+     *
+     * <p>If the storage already contains measurements, those of them which are still
+     * {@linkplain WeatherRollups#oldestRetained(Instant) retained} in the rollups are accounted
+     * in the rollups by a task run on the given executor. The older measurements are not read.
+     *
+     * <p>The repository stores and reads the measurements right away, without waiting for
+     * the task, as the retained measurements may span years. Until the task completes,
+     * the rollups miss some of the measurements stored before the repository was created.
+     *
+     * @param storage
+     *         the storage of the measurements
+     * @param executor
+     *         the executor to rebuild the rollups of the already stored measurements on
+     */
+    MeasurementRepository(MeasurementStorage storage, Executor executor) {
+        this.storage = checkNotNull(storage);
+        checkNotNull(executor);
+        long stored = storage.lastSequence();
+        if (stored > 0) {
+            executor.execute(() -> rebuildRollups(stored));
+        }
+    }
+
+    /**
+     * Creates a new repository which keeps the measurements in the given storage.
+     *
+     * <p>The rollups of the already stored measurements are rebuilt before the constructor
+     * returns.
+     */
+    MeasurementRepository(MeasurementStorage storage) {
+        this(storage, directExecutor());
+    }
+
+    /**
+     * Creates a new repository which keeps all the measurements on the heap.
+     */
+    MeasurementRepository() {
+        this(new SkipListStorage());
+    }
+
+    /**
+     * Accounts the retained measurements with the sequence numbers up to the given one
+     * in the rollups.
+     *
+     * <p>The later measurements are accounted as they are stored.
+     */
+    private void rebuildRollups(long lastStored) {
+        Instant since = rollups.oldestRetained(Instant.now());
+        try {
+            storage.forEachSince(since, measurement -> {
+                if (measurement.sequence() <= lastStored) {
+                    rollups.addRestored(measurement);
+                }
+            });
+            log.atInfo()
+               .log("Rebuilt the rollups of the measurements taken since %s.", since);
+        } catch (RuntimeException e) {
+            log.atSevere()
+               .withCause(e)
+               .log("Unable to rebuild the rollups of the stored measurements.");
+        }
+    }
 
     Measurements between(Instant startTime, Instant endTime) {
         checkNotNull(startTime);
         checkNotNull(endTime);
-        return new Measurements(inPeriod(startTime, endTime));
+        return new Measurements(storage.between(startTime, endTime));
+    }
+
+    /**
+     * Obtains up to {@code limit} measurements stored after the one with the given
+     * sequence number.
+     */
+    Measurements after(long sequence, int limit) {
+        return new Measurements(storage.after(sequence, limit));
+    }
+
+    /**
+     * Obtains the epoch of the sequence numbers of the stored measurements.
+     *
+     * @see MeasurementStorage#epoch()
+     */
+    long epoch() {
+        return storage.epoch();
+    }
+
+    /**
+     * Obtains the sequence number of the last stored measurement.
+     *
+     * @see MeasurementStorage#lastSequence()
+     */
+    long lastSequence() {
+        return storage.lastSequence();
     }
 
-    void store(Measurement m) {
+    /**
+     * Stores the given measurement and accounts it in the rollups.
+     *
+     * @return the stored measurement with the assigned sequence number or {@code null} if
+     *         the storage ignored the measurement
+     */
+    @CanIgnoreReturnValue
+    @Nullable Measurement store(Measurement m) {
         checkNotNull(m);
-        measurements.add(m);
+        Measurement stored = storage.store(m);
+        if (stored != null) {
+            rollups.add(stored);
+        }
+        return stored;
     }
 
-    private ImmutableList<Measurement> inPeriod(Instant startTime, Instant endTime) {
-        return measurements
-                .stream()
-                .filter(m -> m.isIn(startTime, endTime))
-                .collect(toImmutableList());
+    /**
+     * Obtains the statistics of the measurements of the given granularity which overlap
+     * with the given period.
+     */
+    Rollups rollups(Granularity granularity, Instant startTime, Instant endTime) {
+        return rollups.between(granularity, startTime, endTime);
     }
 }
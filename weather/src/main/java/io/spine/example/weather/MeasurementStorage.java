@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * A storage of the weather measurements.
+ *
+ * <p>The storage assigns a {@linkplain Measurement#sequence() sequence number} to each
+ * measurement it accepts. The sequence numbers start with {@code 1} and grow in the order
+ * the measurements are stored, so a reader may use the sequence number of the last measurement
+ * it has read as a cursor to resume reading from.
+ *
+ * <p>The sequence numbers are only comparable within the same {@linkplain #epoch() epoch}.
+ * A storage which does not survive a restart numbers the measurements anew in a new epoch.
+ *
+ * <p>Implementations are safe for a single writer and multiple concurrent readers.
+ */
+interface MeasurementStorage {
+
+    /**
+     * Stores the given measurement.
+     *
+     * @return the stored measurement with the assigned sequence number or {@code null} if
+     *         the storage ignored the measurement
+     */
+    @CanIgnoreReturnValue
+    @Nullable Measurement store(Measurement measurement);
+
+    /**
+     * Obtains the measurements taken strictly after the {@code startTime} and strictly before
+     * the {@code endTime} in chronological order.
+     */
+    ImmutableList<Measurement> between(Instant startTime, Instant endTime);
+
+    /**
+     * Obtains up to {@code limit} measurements with the sequence numbers greater than
+     * the given one in the order of the sequence numbers.
+     *
+     * <p>If the storage no longer retains some of the requested measurements, they are skipped.
+     */
+    ImmutableList<Measurement> after(long sequence, int limit);
+
+    /**
+     * Obtains the epoch of the sequence numbers assigned by this storage.
+     */
+    long epoch();
+
+    /**
+     * Obtains the sequence number of the last stored measurement.
+     *
+     * <p>Returns {@code 0} if no measurements have been stored in the current epoch.
+     */
+    long lastSequence();
+
+    /**
+     * Passes each stored measurement taken not earlier than the given time to the given action
+     * in chronological order.
+     */
+    default void forEachSince(Instant startTime, Consumer<Measurement> action) {
+        between(startTime.minusNanos(1), Instant.MAX).forEach(action);
+    }
+}
@@ -30,6 +30,9 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public final class Measurements {
@@ -55,6 +58,24 @@ public final class Measurements {
                 .toString();
     }
 
+    /**
+     * Writes these measurements in the JSON format directly into the given stream.
+     *
+     * <p>Unlike {@link #toJson()}, does not build the whole JSON string in memory.
+     */
+    public void writeJsonTo(OutputStream out) throws IOException {
+        MeasurementsJsonWriter.forCurrentThread()
+                              .write(measurements, out);
+    }
+
+    /**
+     * Writes these measurements directly into the given stream as a sequence of
+     * length-delimited Protobuf messages.
+     */
+    public void writeProtoTo(OutputStream out) throws IOException {
+        MeasurementsProtoWriter.write(measurements, out);
+    }
+
     @Override
     public String toString() {
         return toJson();
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Writes {@link Measurements} in the JSON format directly into an output stream.
+ *
+ * <p>The writer encodes the measurements into a reusable byte buffer and flushes the buffer
+ * into the stream whenever it fills up. No intermediate strings are built for the whole
+ * response or for a single measurement.
+ *
+ * <p>The produced JSON has the same structure as the one produced by {@link Measurements#toJson()}.
+ * The writer can also encode a single measurement as a server-sent event.
+ *
+ * <p>The writer is not thread-safe. Use {@link #forCurrentThread()} to obtain an instance
+ * owned by the calling thread.
+ */
+final class MeasurementsJsonWriter {
+
+    private static final ThreadLocal<MeasurementsJsonWriter> writers =
+            ThreadLocal.withInitial(MeasurementsJsonWriter::new);
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * The upper bound of the size of a single encoded measurement.
+     */
+    private static final int MAX_MEASUREMENT_SIZE = 256;
+
+    private static final byte[] PREFIX = ascii("{\"measurements\":[");
+    private static final byte[] SUFFIX = ascii("]}");
+    private static final byte[] WIND_SPEED = ascii("{\"windSpeed\":");
+    private static final byte[] WIND_DIRECTION = ascii(",\"windDirection\":");
+    private static final byte[] TEMPERATURE = ascii(",\"temperature\":");
+    private static final byte[] WHEN_MEASURED = ascii(",\"whenMeasured\":{\"seconds\":");
+    private static final byte[] NANOS = ascii(",\"nanos\":");
+    private static final byte[] SEQUENCE = ascii("},\"sequence\":");
+    private static final byte[] MEASUREMENT_END = ascii("}");
+    private static final byte[] EVENT_ID = ascii("id: ");
+    private static final byte EVENT_ID_SEPARATOR = ':';
+    private static final byte[] EVENT_DATA = ascii("\ndata: ");
+    private static final byte[] EVENT_END = ascii("\n\n");
+    private static final byte[] HEARTBEAT = ascii(":\n\n");
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    private MeasurementsJsonWriter() {
+    }
+
+    /**
+     * Obtains the writer owned by the current thread.
+     */
+    static MeasurementsJsonWriter forCurrentThread() {
+        return writers.get();
+    }
+
+    /**
+     * Writes the given measurements into the given stream.
+     *
+     * <p>The stream is flushed but not closed.
+     */
+    void write(Iterable<Measurement> measurements, OutputStream out) throws IOException {
+        checkNotNull(measurements);
+        checkNotNull(out);
+        position = 0;
+        append(PREFIX);
+        boolean first = true;
+        for (Measurement measurement : measurements) {
+            if (buffer.length - position < MAX_MEASUREMENT_SIZE) {
+                flushTo(out);
+            }
+            if (!first) {
+                buffer[position++] = ',';
+            }
+            appendMeasurement(measurement);
+            first = false;
+        }
+        append(SUFFIX);
+        flushTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes the given measurement into the given stream as a server-sent event with
+     * the JSON data.
+     *
+     * <p>The ID of the event is the given epoch and the sequence number of the measurement
+     * separated by a colon, e.g. {@code 1614556800000:42}, so that a client may resume
+     * the stream after the last event it has received, and the server may tell if the sequence
+     * number still belongs to the same epoch.
+     *
+     * <p>The stream is flushed but not closed.
+     */
+    void writeEvent(long epoch, Measurement measurement, OutputStream out) throws IOException {
+        checkNotNull(measurement);
+        checkNotNull(out);
+        position = 0;
+        append(EVENT_ID);
+        appendLong(epoch);
+        buffer[position++] = EVENT_ID_SEPARATOR;
+        appendLong(measurement.sequence());
+        append(EVENT_DATA);
+        appendMeasurement(measurement);
+        append(EVENT_END);
+        flushTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes a server-sent event comment which carries no data.
+     *
+     * <p>Such comments keep an idle connection alive and let the server notice if the client
+     * has disconnected.
+     */
+    void writeHeartbeat(OutputStream out) throws IOException {
+        checkNotNull(out);
+        out.write(HEARTBEAT);
+        out.flush();
+    }
+
+    private void appendMeasurement(Measurement measurement) {
+        Instant whenMeasured = measurement.whenMeasured();
+        append(WIND_SPEED);
+        appendFloat(measurement.windSpeed());
+        append(WIND_DIRECTION);
+        appendFloat(measurement.windDirection());
+        append(TEMPERATURE);
+        appendFloat(measurement.temperature());
+        append(WHEN_MEASURED);
+        appendLong(whenMeasured.getEpochSecond());
+        append(NANOS);
+        appendLong(whenMeasured.getNano());
+        append(SEQUENCE);
+        appendLong(measurement.sequence());
+        append(MEASUREMENT_END);
+    }
+
+    private void append(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Appends the given value in the same notation as {@link Float#toString(float)} does.
+     */
+    private void appendFloat(float value) {
+        String text = Float.toString(value);
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(ascii(Long.toString(value)));
+            return;
+        }
+        long remainder = value;
+        if (remainder < 0) {
+            buffer[position++] = '-';
+            remainder = -remainder;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + remainder % 10);
+            remainder /= 10;
+        } while (remainder != 0);
+        for (int left = start, right = position - 1; left < right; left++, right--) {
+            byte digit = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = digit;
+        }
+    }
+
+    private void flushTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(US_ASCII);
+    }
+}
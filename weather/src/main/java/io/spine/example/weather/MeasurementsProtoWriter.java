@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.protobuf.CodedOutputStream.computeFloatSize;
+import static com.google.protobuf.CodedOutputStream.computeInt32Size;
+import static com.google.protobuf.CodedOutputStream.computeInt64Size;
+import static com.google.protobuf.CodedOutputStream.computeTagSize;
+import static com.google.protobuf.CodedOutputStream.computeUInt32SizeNoTag;
+import static com.google.protobuf.CodedOutputStream.computeUInt64Size;
+import static com.google.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+/**
+ * Writes {@link Measurement}s in the Protobuf binary format directly into an output stream.
+ *
+ * <p>Each measurement is written as a length-delimited {@code MeteoMeasurement} message:
+ * <pre>
+ * message MeteoMeasurement {
+ *     float wind_speed = 1;
+ *     float wind_direction = 2;
+ *     float temperature = 3;
+ *     google.protobuf.Timestamp when_measured = 4;
+ *     uint64 sequence = 5;
+ * }
+ * </pre>
+ *
+ * <p>Clients may read the messages one by one with {@code MeteoMeasurement.parseDelimitedFrom()}
+ * until the stream is exhausted.
+ */
+final class MeasurementsProtoWriter {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final int WIND_SPEED_FIELD = 1;
+    private static final int WIND_DIRECTION_FIELD = 2;
+    private static final int TEMPERATURE_FIELD = 3;
+    private static final int WHEN_MEASURED_FIELD = 4;
+    private static final int SEQUENCE_FIELD = 5;
+
+    private static final int SECONDS_FIELD = 1;
+    private static final int NANOS_FIELD = 2;
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private MeasurementsProtoWriter() {
+    }
+
+    /**
+     * Writes the given measurements into the given stream.
+     *
+     * <p>The stream is flushed but not closed.
+     */
+    static void write(Iterable<Measurement> measurements, OutputStream out) throws IOException {
+        checkNotNull(measurements);
+        checkNotNull(out);
+        CodedOutputStream output = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        for (Measurement measurement : measurements) {
+            writeDelimited(measurement, output);
+        }
+        output.flush();
+        out.flush();
+    }
+
+    private static void writeDelimited(Measurement measurement, CodedOutputStream output)
+            throws IOException {
+        Instant when = measurement.whenMeasured();
+        int timestampSize = timestampSize(when);
+        int size = computeFloatSize(WIND_SPEED_FIELD, measurement.windSpeed())
+                 + computeFloatSize(WIND_DIRECTION_FIELD, measurement.windDirection())
+                 + computeFloatSize(TEMPERATURE_FIELD, measurement.temperature())
+                 + computeTagSize(WHEN_MEASURED_FIELD)
+                 + computeUInt32SizeNoTag(timestampSize)
+                 + timestampSize
+                 + computeUInt64Size(SEQUENCE_FIELD, measurement.sequence());
+        output.writeUInt32NoTag(size);
+        output.writeFloat(WIND_SPEED_FIELD, measurement.windSpeed());
+        output.writeFloat(WIND_DIRECTION_FIELD, measurement.windDirection());
+        output.writeFloat(TEMPERATURE_FIELD, measurement.temperature());
+        output.writeTag(WHEN_MEASURED_FIELD, WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(timestampSize);
+        output.writeInt64(SECONDS_FIELD, when.getEpochSecond());
+        output.writeInt32(NANOS_FIELD, when.getNano());
+        output.writeUInt64(SEQUENCE_FIELD, measurement.sequence());
+    }
+
+    private static int timestampSize(Instant when) {
+        return computeInt64Size(SECONDS_FIELD, when.getEpochSecond())
+             + computeInt32Size(NANOS_FIELD, when.getNano());
+    }
+}
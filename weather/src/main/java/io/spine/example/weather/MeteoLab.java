@@ -40,9 +40,30 @@ public final class MeteoLab {
     private static final FluentLogger log = forEnclosingClass();
 
     private static final int RANDOMNESS_BOUND = 40;
-    private final Random rand = new SecureRandom();
+    private final Random rand;
     private Measurement lastMeasurement = new Measurement(0, 0, 0, Instant.ofEpochSecond(1));
 
+    /**
+     * Creates a new lab which produces unpredictable measurements.
+     */
+    public MeteoLab() {
+        this(new SecureRandom());
+    }
+
+    private MeteoLab(Random rand) {
+        this.rand = rand;
+    }
+
+    /**
+     * Creates a new lab which produces the same sequence of measurement values for
+     * the same seed.
+     *
+     * <p>Uses a fast non-cryptographic generator, which suits for high sample rates.
+     */
+    public static MeteoLab seeded(long seed) {
+        return new MeteoLab(new Random(seed));
+    }
+
     @SuppressWarnings("NumericCastThatLosesPrecision") // OK for randomly generated values.
     public Measurement measure() {
         double temperatureChange = rand.nextGaussian() * rand.nextInt(RANDOMNESS_BOUND);
@@ -54,10 +75,24 @@ public final class MeteoLab {
         double windDirectionChange = rand.nextGaussian() * rand.nextInt(RANDOMNESS_BOUND);
         float newWindDirection = (float) (lastMeasurement.windDirection() + windDirectionChange);
 
-        lastMeasurement = new Measurement(newWindSpeed, newWindDirection, newTemperature, now());
+        lastMeasurement = new Measurement(newWindSpeed, newWindDirection, newTemperature,
+                                          nextTime());
 
         log.atFine().log("New measurement taken. New weather: `%s`.", lastMeasurement);
 
         return lastMeasurement;
     }
+
+    /**
+     * Obtains the current time, or the time right after the previous measurement, if the clock
+     * has not advanced since then.
+     *
+     * <p>Guarantees that the measurements of the lab are strictly ordered in time even if
+     * they are taken faster than the system clock resolution.
+     */
+    private Instant nextTime() {
+        Instant now = now();
+        Instant previous = lastMeasurement.whenMeasured();
+        return now.isAfter(previous) ? now : previous.plusNanos(1);
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A streaming sketch which estimates quantiles of a series of values.
+ *
+ * <p>The sketch splits the value range into logarithmically sized bins and only counts
+ * the values falling into each bin. An estimated quantile differs from the exact one by
+ * no more than {@linkplain #RELATIVE_ACCURACY 1%} of its value, while the memory footprint
+ * only depends on the range of the values, but not on their number.
+ *
+ * <p>The sketch is not thread-safe.
+ */
+final class QuantileSketch {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    /**
+     * The values which are closer to zero than this one are counted as zeros.
+     */
+    private static final double MIN_INDEXABLE_VALUE = 1.0e-6;
+
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Adds the given value to the sketch.
+     */
+    void add(double value) {
+        checkArgument(!Double.isNaN(value), "Cannot add NaN to a quantile sketch.");
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.increment(index(value));
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.increment(index(-value));
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * Estimates the value of the given quantile.
+     *
+     * @param quantile
+     *         the quantile in range {@code [0, 1]}
+     * @return the estimated value or {@code NaN} if the sketch is empty
+     */
+    double quantile(double quantile) {
+        checkArgument(quantile >= 0 && quantile <= 1, "Quantile must be in range [0, 1].");
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    /**
+     * Obtains the total number of values added to the sketch.
+     */
+    long count() {
+        return count;
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    /**
+     * Obtains the value representing the bin with the given index.
+     *
+     * <p>The bin {@code i} holds the values in range {@code (GAMMA^(i-1), GAMMA^i]}.
+     * The returned value lies within the relative accuracy from any value in the bin.
+     */
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * A contiguous range of bin counters.
+     */
+    private static final class Bins {
+
+        private long[] counts = new long[0];
+
+        /**
+         * The index of the bin counted by {@code counts[0]}.
+         */
+        private int offset;
+
+        private void increment(int index) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+            } else if (index < offset) {
+                int shift = offset - index;
+                long[] grown = new long[counts.length + shift];
+                System.arraycopy(counts, 0, grown, shift, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+            counts[index - offset]++;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.StampedLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link MeasurementStorage} which keeps the latest measurements in a fixed-capacity
+ * off-heap ring buffer.
+ *
+ * <p>Each measurement field is kept in its own primitive column. The columns are allocated
+ * outside of the Java heap once, upon the storage creation, so the memory footprint does not
+ * depend on how long the storage has been in use. When the buffer is full, a new measurement
+ * overwrites the oldest one.
+ *
+ * <p>Optionally, the storage may also limit the age of the measurements. The measurements which
+ * are older than the maximum age are never returned, even if they are still in the buffer.
+ *
+ * <p>The measurements must be stored in chronological order. A measurement which was taken
+ * no later than the previously stored one is ignored.
+ *
+ * <p>Readers do not block the writer. A read is performed optimistically and is only repeated
+ * under a read lock if the writer has modified the buffer during the read.
+ */
+final class RingBufferStorage implements MeasurementStorage {
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+    private final int capacity;
+    private final @Nullable Duration maxAge;
+    private final long epoch = System.currentTimeMillis();
+
+    private final LongBuffer whenMeasured;
+    private final FloatBuffer windSpeed;
+    private final FloatBuffer windDirection;
+    private final FloatBuffer temperature;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The total number of measurements ever written into the buffer.
+     *
+     * <p>The measurement with the index {@code n} has the sequence number {@code n + 1} and
+     * occupies the slot {@code n % capacity}.
+     */
+    private long written;
+
+    private RingBufferStorage(int capacity, @Nullable Duration maxAge) {
+        checkArgument(capacity > 0 && capacity <= MAX_CAPACITY,
+                      "Ring buffer capacity must be in range (0, %s].", MAX_CAPACITY);
+        if (maxAge != null) {
+            checkArgument(!maxAge.isNegative() && !maxAge.isZero(),
+                          "Maximum measurement age must be positive.");
+        }
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.whenMeasured = allocate(capacity, Long.BYTES).asLongBuffer();
+        this.windSpeed = allocate(capacity, Float.BYTES).asFloatBuffer();
+        this.windDirection = allocate(capacity, Float.BYTES).asFloatBuffer();
+        this.temperature = allocate(capacity, Float.BYTES).asFloatBuffer();
+    }
+
+    /**
+     * Creates a new storage which retains at most {@code capacity} latest measurements.
+     */
+    static RingBufferStorage retainingLast(int capacity) {
+        return new RingBufferStorage(capacity, null);
+    }
+
+    /**
+     * Creates a new storage which retains at most {@code capacity} latest measurements taken
+     * no earlier than {@code maxAge} ago.
+     */
+    static RingBufferStorage retainingLast(int capacity, Duration maxAge) {
+        checkNotNull(maxAge);
+        return new RingBufferStorage(capacity, maxAge);
+    }
+
+    private static ByteBuffer allocate(int capacity, int bytesPerValue) {
+        return ByteBuffer.allocateDirect(capacity * bytesPerValue)
+                         .order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    @CanIgnoreReturnValue
+    public @Nullable Measurement store(Measurement measurement) {
+        checkNotNull(measurement);
+        long time = EpochNanos.of(measurement.whenMeasured());
+        long stamp = lock.writeLock();
+        try {
+            if (written > 0 && time <= whenMeasured.get(slot(written - 1))) {
+                return null;
+            }
+            int slot = slot(written);
+            whenMeasured.put(slot, time);
+            windSpeed.put(slot, measurement.windSpeed());
+            windDirection.put(slot, measurement.windDirection());
+            temperature.put(slot, measurement.temperature());
+            written++;
+            return measurement.withSequence(written);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the time this storage was created in milliseconds since the Unix epoch.
+     *
+     * <p>The storage does not survive a restart, so each instance starts a new epoch.
+     */
+    @Override
+    public long epoch() {
+        return epoch;
+    }
+
+    @Override
+    public long lastSequence() {
+        long stamp = lock.readLock();
+        try {
+            return written;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public ImmutableList<Measurement> between(Instant startTime, Instant endTime) {
+        checkNotNull(startTime);
+        checkNotNull(endTime);
+        long start = EpochNanos.of(startTime);
+        if (maxAge != null) {
+            start = Math.max(start, EpochNanos.of(Instant.now().minus(maxAge)) - 1);
+        }
+        long end = EpochNanos.of(endTime);
+        if (start >= end) {
+            return ImmutableList.of();
+        }
+        long stamp = lock.tryOptimisticRead();
+        ImmutableList<Measurement> result = read(start, end);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = read(start, end);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ImmutableList<Measurement> after(long sequence, int limit) {
+        checkArgument(limit >= 0, "Limit must not be negative.");
+        long stamp = lock.tryOptimisticRead();
+        ImmutableList<Measurement> result = readAfter(sequence, limit);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = readAfter(sequence, limit);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the measurements taken strictly between the given times out of the columns.
+     *
+     * <p>If called without holding the lock, the result is only valid if the lock stamp is
+     * validated afterwards.
+     */
+    private ImmutableList<Measurement> read(long startNanos, long endNanos) {
+        long last = written;
+        long first = Math.max(0, last - capacity);
+        long from = firstLaterThan(startNanos, first, last);
+        long to = firstLaterThan(endNanos - 1, from, last);
+        return copy(from, to);
+    }
+
+    /**
+     * Copies up to {@code limit} measurements with the sequence numbers greater than the given
+     * one out of the columns.
+     *
+     * <p>If called without holding the lock, the result is only valid if the lock stamp is
+     * validated afterwards.
+     */
+    private ImmutableList<Measurement> readAfter(long sequence, int limit) {
+        long last = written;
+        long first = Math.max(0, last - capacity);
+        if (maxAge != null) {
+            long cutoff = EpochNanos.of(Instant.now().minus(maxAge)) - 1;
+            first = firstLaterThan(cutoff, first, last);
+        }
+        long from = Math.max(first, Math.max(0, sequence));
+        long to = Math.min(last, from + limit);
+        return copy(from, to);
+    }
+
+    private ImmutableList<Measurement> copy(long from, long to) {
+        ImmutableList.Builder<Measurement> result = ImmutableList.builder();
+        for (long n = from; n < to; n++) {
+            result.add(measurementAt(n));
+        }
+        return result.build();
+    }
+
+    /**
+     * Finds the sequential number of the first measurement in {@code [from, to)} taken
+     * later than the given time.
+     *
+     * @return the found sequential number or {@code to} if there is no such measurement
+     */
+    private long firstLaterThan(long nanos, long from, long to) {
+        long low = from;
+        long high = to;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (whenMeasured.get(slot(mid)) <= nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Measurement measurementAt(long index) {
+        int slot = slot(index);
+        return new Measurement(windSpeed.get(slot),
+                               windDirection.get(slot),
+                               temperature.get(slot),
+                               EpochNanos.toInstant(whenMeasured.get(slot)),
+                               index + 1);
+    }
+
+    private int slot(long sequentialNumber) {
+        return (int) (sequentialNumber % capacity);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Aggregated statistics of the measurements taken during a single period of time.
+ *
+ * <p>The statistics are updated incrementally as new measurements arrive.
+ */
+final class Rollup {
+
+    private static final double MEDIAN = 0.5;
+    private static final double P95 = 0.95;
+
+    private final Instant start;
+    private final Instant end;
+    private final QuantileSketch windSpeeds = new QuantileSketch();
+    private float minWindSpeed = Float.POSITIVE_INFINITY;
+    private float maxWindSpeed = Float.NEGATIVE_INFINITY;
+    private double windSpeedSum;
+
+    /**
+     * Creates a new rollup for the period from {@code start} (inclusive) to {@code end}
+     * (exclusive).
+     */
+    Rollup(Instant start, Instant end) {
+        this.start = checkNotNull(start);
+        this.end = checkNotNull(end);
+    }
+
+    /**
+     * Checks if the given time belongs to the period of this rollup.
+     */
+    boolean covers(Instant time) {
+        return !time.isBefore(start) && time.isBefore(end);
+    }
+
+    /**
+     * Accounts the given measurement in the statistics.
+     */
+    synchronized void add(Measurement measurement) {
+        float windSpeed = measurement.windSpeed();
+        windSpeeds.add(windSpeed);
+        minWindSpeed = Math.min(minWindSpeed, windSpeed);
+        maxWindSpeed = Math.max(maxWindSpeed, windSpeed);
+        windSpeedSum += windSpeed;
+    }
+
+    /**
+     * Obtains a snapshot of the current statistics.
+     */
+    synchronized RollupSummary summary() {
+        long count = windSpeeds.count();
+        return new RollupSummary(start.getEpochSecond(),
+                                 count,
+                                 minWindSpeed,
+                                 maxWindSpeed,
+                                 windSpeedSum / count,
+                                 clamp(windSpeeds.quantile(MEDIAN)),
+                                 clamp(windSpeeds.quantile(P95)));
+    }
+
+    /**
+     * Fits the estimated value into the range of the actually measured values.
+     */
+    private double clamp(double estimate) {
+        return Math.max(minWindSpeed, Math.min(maxWindSpeed, estimate));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+/**
+ * A snapshot of the wind speed statistics over a period of time.
+ */
+final class RollupSummary {
+
+    /**
+     * The start of the period in seconds since the epoch.
+     */
+    private final long start;
+    private final long count;
+    private final float minWindSpeed;
+    private final float maxWindSpeed;
+    private final double avgWindSpeed;
+    private final double p50WindSpeed;
+    private final double p95WindSpeed;
+
+    @SuppressWarnings("ConstructorWithTooManyParameters") // A plain data holder.
+    RollupSummary(long start,
+                  long count,
+                  float minWindSpeed,
+                  float maxWindSpeed,
+                  double avgWindSpeed,
+                  double p50WindSpeed,
+                  double p95WindSpeed) {
+        this.start = start;
+        this.count = count;
+        this.minWindSpeed = minWindSpeed;
+        this.maxWindSpeed = maxWindSpeed;
+        this.avgWindSpeed = avgWindSpeed;
+        this.p50WindSpeed = p50WindSpeed;
+        this.p95WindSpeed = p95WindSpeed;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Instant;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * A {@link MeasurementStorage} which keeps every measurement on the heap.
+ *
+ * <p>The measurements are indexed by the time they were taken. A range query only visits
+ * the measurements which fall into the requested period and never blocks the writers.
+ *
+ * <p>The storage is unbounded.
+ */
+final class SkipListStorage implements MeasurementStorage {
+
+    private final NavigableMap<Instant, Measurement> measurements = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, Measurement> bySequence = new ConcurrentSkipListMap<>();
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * The sequence number of the last stored measurement.
+     *
+     * <p>Only modified by the writer.
+     */
+    private volatile long lastSequence;
+
+    @Override
+    @CanIgnoreReturnValue
+    public @Nullable Measurement store(Measurement measurement) {
+        checkNotNull(measurement);
+        Instant when = measurement.whenMeasured();
+        if (measurements.containsKey(when)) {
+            return null;
+        }
+        long sequence = lastSequence + 1;
+        lastSequence = sequence;
+        Measurement stored = measurement.withSequence(sequence);
+        bySequence.put(sequence, stored);
+        measurements.put(when, stored);
+        return stored;
+    }
+
+    @Override
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns the time this storage was created in milliseconds since the Unix epoch.
+     *
+     * <p>The storage does not survive a restart, so each instance starts a new epoch.
+     */
+    @Override
+    public long epoch() {
+        return epoch;
+    }
+
+    @Override
+    public ImmutableList<Measurement> between(Instant startTime, Instant endTime) {
+        checkNotNull(startTime);
+        checkNotNull(endTime);
+        if (!startTime.isBefore(endTime)) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.copyOf(measurements.subMap(startTime, false, endTime, false)
+                                                .values());
+    }
+
+    @Override
+    public ImmutableList<Measurement> after(long sequence, int limit) {
+        checkArgument(limit >= 0, "Limit must not be negative.");
+        return bySequence.tailMap(sequence, false)
+                         .values()
+                         .stream()
+                         .limit(limit)
+                         .collect(toImmutableList());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Pre-aggregated statistics of the weather measurements.
+ *
+ * <p>Each measurement is accounted in a per-minute, a per-hour and a per-day {@link Rollup}
+ * as soon as it is stored, so a summary of a long period never requires reading the raw
+ * measurements. Only a limited number of the latest rollups of each granularity is kept.
+ */
+final class WeatherRollups {
+
+    private final Map<Granularity, NavigableMap<Instant, Rollup>> rollups =
+            new EnumMap<>(Granularity.class);
+
+    /**
+     * The rollups which received the latest measurement.
+     *
+     * <p>Consecutive measurements usually fall into the same periods, so the rollups to update
+     * are found without a lookup.
+     */
+    private final Map<Granularity, Rollup> latest = new EnumMap<>(Granularity.class);
+
+    WeatherRollups() {
+        for (Granularity granularity : Granularity.values()) {
+            rollups.put(granularity, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Accounts the given measurement in the rollups of all granularities.
+     */
+    void add(Measurement measurement) {
+        checkNotNull(measurement);
+        Instant when = measurement.whenMeasured();
+        rollups.forEach((granularity, periods) -> {
+            Rollup rollup = latest.get(granularity);
+            if (rollup == null || !rollup.covers(when)) {
+                rollup = periods.get(granularity.periodStart(when));
+            }
+            if (rollup == null) {
+                rollup = publishNew(granularity, measurement);
+            } else {
+                rollup.add(measurement);
+            }
+            latest.put(granularity, rollup);
+        });
+    }
+
+    /**
+     * Accounts the given measurement restored from the storage in the rollups of all
+     * granularities.
+     *
+     * <p>Unlike {@link #add(Measurement) add()}, may be called concurrently with the writer,
+     * as it does not use the {@linkplain #latest latest} rollups. The restored measurement must
+     * not be added otherwise.
+     */
+    void addRestored(Measurement measurement) {
+        checkNotNull(measurement);
+        Instant when = measurement.whenMeasured();
+        rollups.forEach((granularity, periods) -> {
+            Rollup rollup = periods.get(granularity.periodStart(when));
+            if (rollup == null) {
+                publishNew(granularity, measurement);
+            } else {
+                rollup.add(measurement);
+            }
+        });
+    }
+
+    /**
+     * Creates a rollup which accounts the given measurement and makes it available to
+     * the readers.
+     *
+     * <p>The measurement is added before the rollup is published, so that the readers never
+     * see an empty rollup.
+     */
+    private Rollup publishNew(Granularity granularity, Measurement measurement) {
+        NavigableMap<Instant, Rollup> periods = rollups.get(granularity);
+        Instant start = granularity.periodStart(measurement.whenMeasured());
+        Rollup rollup = new Rollup(start, granularity.periodEnd(start));
+        rollup.add(measurement);
+        Rollup existing = periods.putIfAbsent(start, rollup);
+        if (existing != null) {
+            existing.add(measurement);
+            return existing;
+        }
+        periods.headMap(granularity.oldestRetained(start))
+               .clear();
+        return rollup;
+    }
+
+    /**
+     * Obtains the start of the oldest period which the rollups of any granularity retain at
+     * the given time.
+     *
+     * <p>The measurements taken earlier do not affect any retained rollup.
+     */
+    Instant oldestRetained(Instant now) {
+        checkNotNull(now);
+        Instant oldest = now;
+        for (Granularity granularity : Granularity.values()) {
+            Instant retained = granularity.oldestRetained(granularity.periodStart(now));
+            if (retained.isBefore(oldest)) {
+                oldest = retained;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Obtains the rollups of the given granularity for the periods which overlap with
+     * the period from {@code startTime} (inclusive) to {@code endTime} (exclusive).
+     */
+    Rollups between(Granularity granularity, Instant startTime, Instant endTime) {
+        checkNotNull(granularity);
+        checkNotNull(startTime);
+        checkNotNull(endTime);
+        Instant from = granularity.periodStart(startTime);
+        if (!from.isBefore(endTime)) {
+            return new Rollups(ImmutableList.of());
+        }
+        ImmutableList<RollupSummary> summaries = rollups
+                .get(granularity)
+                .subMap(from, true, endTime, false)
+                .values()
+                .stream()
+                .map(Rollup::summary)
+                .collect(toImmutableList());
+        return new Rollups(summaries);
+    }
+
+    /**
+     * The length of the period covered by a single rollup.
+     */
+    enum Granularity {
+
+        MINUTE(ChronoUnit.MINUTES, 2 * 24 * 60),
+        HOUR(ChronoUnit.HOURS, 90 * 24),
+        DAY(ChronoUnit.DAYS, 5 * 366);
+
+        private final ChronoUnit unit;
+        private final int retainedPeriods;
+
+        Granularity(ChronoUnit unit, int retainedPeriods) {
+            this.unit = unit;
+            this.retainedPeriods = retainedPeriods;
+        }
+
+        private Instant periodStart(Instant time) {
+            return time.truncatedTo(unit);
+        }
+
+        private Instant periodEnd(Instant periodStart) {
+            return periodStart.plus(1, unit);
+        }
+
+        private Instant oldestRetained(Instant latestPeriodStart) {
+            Duration retention = unit.getDuration()
+                                     .multipliedBy(retainedPeriods - 1);
+            return latestPeriodStart.minus(retention);
+        }
+    }
+}
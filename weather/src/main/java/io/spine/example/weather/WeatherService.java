@@ -26,25 +26,71 @@
 
 package io.spine.example.weather;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
+import io.spine.example.http.ResponseCompression;
+import io.spine.example.weather.WeatherRollups.Granularity;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spark.Request;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.flogger.FluentLogger.forEnclosingClass;
-import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
-import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static spark.Spark.defaultResponseTransformer;
 import static spark.Spark.get;
+import static spark.Spark.halt;
 import static spark.Spark.port;
 
 final class WeatherService {
 
     private static final FluentLogger log = forEnclosingClass();
-    private static final ExecutorService meteoLabThread = newSingleThreadExecutor();
     private static final int PORT = 4242;
+    private static final String ACCEPT_HEADER = "Accept";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-After";
+    private static final String EPOCH_HEADER = "X-Sequence-Epoch";
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static final char EVENT_ID_SEPARATOR = ':';
+    private static final int STALE_CURSOR_STATUS = 409;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
+    private static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream";
+    private static final Duration HEARTBEAT_PERIOD = Duration.ofSeconds(30);
+
+    private static final String STORAGE_PROPERTY = "weather.storage";
+    private static final String HEAP_STORAGE = "heap";
+    private static final String RING_STORAGE = "ring";
+    private static final String RING_CAPACITY_PROPERTY = "weather.ring.capacity";
+    private static final String RING_MAX_AGE_PROPERTY = "weather.ring.maxAge";
+    private static final int DEFAULT_RING_CAPACITY = 1 << 20;
+    private static final String JOURNAL_STORAGE = "journal";
+    private static final String JOURNAL_DIR_PROPERTY = "weather.journal.dir";
+    private static final String DEFAULT_JOURNAL_DIR = "weather-journal";
+
+    private static final String STATIONS_PROPERTY = "weather.stations";
+    private static final String SAMPLE_RATE_PROPERTY = "weather.sampleRate";
+    private static final String SEED_PROPERTY = "weather.seed";
+    private static final String THREADS_PROPERTY = "weather.threads";
+    private static final String STATION_ID_FORMAT = "station-%d";
+    private static final double DEFAULT_SAMPLE_RATE = 0.25;
+
+    private static final String GZIP_MIN_SIZE_PROPERTY = "weather.gzip.minSize";
+    private static final String GZIP_LEVEL_PROPERTY = "weather.gzip.level";
+    private static final int DEFAULT_GZIP_MIN_SIZE = 1024;
+    private static final int DEFAULT_GZIP_LEVEL = 6;
 
     /**
      * Prevents the utility class instantiation.
@@ -53,38 +99,423 @@ final class WeatherService {
     }
 
     public static void main(String[] args) {
-        MeasurementRepository repository = new MeasurementRepository();
-        MeteoLab lab = new MeteoLab();
+        ImmutableMap<String, WeatherStation> stations = createStations();
+        startSimulation(stations);
+        setUpRequestHandler(stations);
+    }
 
-        startUpLab(repository, lab);
-        setUpRequestHandler(repository);
+    /**
+     * Creates the weather stations according to the system properties.
+     *
+     * <p>By default, there is a single station. The number of the stations is set by
+     * the {@code weather.stations} property. The stations are named {@code station-0},
+     * {@code station-1}, and so on.
+     *
+     * <p>If the {@code weather.seed} property is set, the measurement values are produced by
+     * a fast seeded generator, so that the values are the same in every run. Otherwise,
+     * the values are unpredictable.
+     *
+     * <p>The rollups of the measurements stored in the previous runs are rebuilt in
+     * the background, so that the stations start serving the requests right away.
+     */
+    private static ImmutableMap<String, WeatherStation> createStations() {
+        int count = Integer.getInteger(STATIONS_PROPERTY, 1);
+        checkArgument(count > 0, "There must be at least one weather station.");
+        Long seed = Long.getLong(SEED_PROPERTY);
+        ImmutableMap.Builder<String, WeatherStation> stations = ImmutableMap.builder();
+        Executor rollupRebuilds = newCachedThreadPool();
+        for (int i = 0; i < count; i++) {
+            String id = format(STATION_ID_FORMAT, i);
+            MeteoLab lab = seed == null
+                           ? new MeteoLab()
+                           : MeteoLab.seeded(seed + i);
+            MeasurementRepository repository =
+                    new MeasurementRepository(storage(id), rollupRebuilds);
+            stations.put(id, new WeatherStation(id, lab, repository));
+        }
+        return stations.build();
     }
 
-    @SuppressWarnings("InfiniteLoopStatement")
-    private static void startUpLab(MeasurementRepository repository, MeteoLab lab) {
-        meteoLabThread.execute(() -> {
-            while (true) {
-                sleepUninterruptibly(Duration.ofSeconds(4));
-                Measurement newMeasurement = lab.measure();
-                repository.store(newMeasurement);
-            }
-        });
+    /**
+     * Starts taking measurements on all the stations.
+     *
+     * <p>Each station takes {@code weather.sampleRate} measurements per second, which is
+     * one measurement per 4 seconds by default. The stations share a scheduler with
+     * {@code weather.threads} threads, which defaults to the number of processors.
+     */
+    private static void startSimulation(ImmutableMap<String, WeatherStation> stations) {
+        String rateProperty = System.getProperty(SAMPLE_RATE_PROPERTY);
+        double samplesPerSecond = rateProperty == null
+                                  ? DEFAULT_SAMPLE_RATE
+                                  : Double.parseDouble(rateProperty);
+        int threads = Integer.getInteger(THREADS_PROPERTY,
+                                         Runtime.getRuntime().availableProcessors());
+        WeatherSimulation simulation =
+                new WeatherSimulation(newScheduledThreadPool(threads), samplesPerSecond);
+        simulation.start(stations.values());
+        log.atInfo()
+           .log("Started %d weather station(s) at %s samples per second each.",
+                stations.size(), samplesPerSecond);
+    }
+
+    /**
+     * Creates the measurement storage for the given station according to the system properties.
+     *
+     * <p>By default, all the measurements are kept on the heap. If the {@code weather.storage}
+     * property is set to {@code ring}, the latest measurements are kept in an off-heap ring
+     * buffer. The buffer capacity is set by the {@code weather.ring.capacity} property.
+     * The optional {@code weather.ring.maxAge} property sets the maximum age of
+     * the measurements in the ISO-8601 duration format, e.g. {@code PT24H}.
+     *
+     * <p>If the {@code weather.storage} property is set to {@code journal}, the measurements
+     * are persisted in a memory-mapped journal. Each station has its own journal in
+     * a subdirectory of the directory set by the {@code weather.journal.dir} property.
+     */
+    private static MeasurementStorage storage(String stationId) {
+        String mode = System.getProperty(STORAGE_PROPERTY, HEAP_STORAGE);
+        switch (mode) {
+            case HEAP_STORAGE:
+                return new SkipListStorage();
+            case RING_STORAGE:
+                int capacity = Integer.getInteger(RING_CAPACITY_PROPERTY, DEFAULT_RING_CAPACITY);
+                String maxAge = System.getProperty(RING_MAX_AGE_PROPERTY);
+                log.atInfo()
+                   .log("Storing up to %d measurements in a ring buffer.", capacity);
+                return maxAge == null
+                       ? RingBufferStorage.retainingLast(capacity)
+                       : RingBufferStorage.retainingLast(capacity, Duration.parse(maxAge));
+            case JOURNAL_STORAGE:
+                Path directory = Paths.get(System.getProperty(JOURNAL_DIR_PROPERTY,
+                                                              DEFAULT_JOURNAL_DIR))
+                                      .resolve(stationId);
+                MeasurementJournal journal = MeasurementJournal.open(directory);
+                log.atInfo()
+                   .log("Opened a journal of %d measurements in `%s`.",
+                        journal.size(), directory.toAbsolutePath());
+                return journal;
+            default:
+                throw new IllegalArgumentException(
+                        format("Unknown measurement storage `%s`.", mode));
+        }
+    }
+
+    /**
+     * Creates the compression of the responses according to the system properties.
+     *
+     * <p>The responses larger than {@code weather.gzip.minSize} bytes, 1 KiB by default, are
+     * compressed with gzip if the client accepts it. The compression level is set by
+     * the {@code weather.gzip.level} property from 1 to 9, 6 by default.
+     */
+    private static ResponseCompression compression() {
+        int minSize = Integer.getInteger(GZIP_MIN_SIZE_PROPERTY, DEFAULT_GZIP_MIN_SIZE);
+        int level = Integer.getInteger(GZIP_LEVEL_PROPERTY, DEFAULT_GZIP_LEVEL);
+        return new ResponseCompression(minSize, level);
     }
 
-    private static void setUpRequestHandler(MeasurementRepository repository) {
+    /**
+     * Sets up the HTTP endpoints.
+     *
+     * <p>The bodies of {@code /events} and {@code /rollups} are {@linkplain #compression()
+     * compressed}. The event stream is not, as its events must reach the clients right away.
+     *
+     * <p>The responses of {@code /events} and {@code /events/stream} carry
+     * the {@linkplain MeasurementStorage#epoch() epoch} of the sequence numbers in
+     * the {@code X-Sequence-Epoch} header. A client passes it back in the {@code epoch} query
+     * parameter along with the {@code after} cursor. The IDs of the streamed events carry
+     * the epoch too, so that the {@code Last-Event-ID} of a reconnecting event stream client is
+     * checked in the same way. If the epoch has changed since, or the cursor is ahead of
+     * the last stored measurement, the cursor is rejected with the {@code 409 Conflict} status.
+     */
+    private static void setUpRequestHandler(Map<String, WeatherStation> stations) {
         port(PORT);
+        ResponseCompression compression = compression();
         defaultResponseTransformer(Object::toString);
+        WeatherStation defaultStation = stations.values()
+                                                .iterator()
+                                                .next();
         get("/events", (request, response) -> {
+            WeatherStation station = station(request, stations, defaultStation);
+            String afterParam = request.queryParams("after");
+            if (afterParam != null) {
+                checkCursor(Long.parseLong(afterParam), request.queryParams("epoch"), station);
+            }
+            Measurements measurements = afterParam == null
+                                        ? measurementsSince(request, station)
+                                        : measurementsAfter(request, station, afterParam);
+            Long nextCursor = nextCursor(measurements, afterParam);
+            if (nextCursor != null) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor));
+            }
+            response.header(EPOCH_HEADER, String.valueOf(station.repository()
+                                                                .epoch()));
+            boolean protobuf = acceptsProtobuf(request);
+            response.type(protobuf ? PROTOBUF_CONTENT_TYPE : JSON_CONTENT_TYPE);
+            try (OutputStream out = compression.bodyOf(request, response)) {
+                if (protobuf) {
+                    measurements.writeProtoTo(out);
+                } else {
+                    measurements.writeJsonTo(out);
+                }
+            }
+            return "";
+        });
+        get("/rollups", (request, response) -> {
+            WeatherStation station = station(request, stations, defaultStation);
+            String granularityParam = request.queryParams("granularity");
+            Granularity granularity = granularityParam == null
+                                      ? Granularity.HOUR
+                                      : Granularity.valueOf(granularityParam.toUpperCase());
             String sinceParam = request.queryParams("since");
             checkArgument(sinceParam != null && !sinceParam.isEmpty());
-            long epochSeconds = Long.parseLong(sinceParam);
-            Instant since = Instant.ofEpochSecond(epochSeconds);
-            Instant upTo = Instant.now();
-            Measurements measurements = repository.between(since, upTo);
-            log.atFine()
-               .log("Found `%d` measurements between %s and %s.",
-                    measurements.measurements().size(), since, upTo);
-            return measurements;
+            Instant since = Instant.ofEpochSecond(Long.parseLong(sinceParam));
+            String uptoParam = request.queryParams("upto");
+            Instant upTo = uptoParam == null
+                           ? Instant.now()
+                           : Instant.ofEpochSecond(Long.parseLong(uptoParam));
+            Rollups rollups = station.repository()
+                                     .rollups(granularity, since, upTo);
+            response.type(JSON_CONTENT_TYPE);
+            try (OutputStream out = compression.bodyOf(request, response)) {
+                out.write(rollups.toString()
+                                 .getBytes(UTF_8));
+            }
+            return "";
         });
+        get("/events/stream", (request, response) -> {
+            WeatherStation station = station(request, stations, defaultStation);
+            Long after = streamCursor(request, station);
+            response.type(EVENT_STREAM_CONTENT_TYPE);
+            response.header("Cache-Control", "no-cache");
+            response.header(EPOCH_HEADER, String.valueOf(station.repository()
+                                                                .epoch()));
+            streamEvents(request, station, after, response.raw().getOutputStream());
+            return "";
+        });
+    }
+
+    private static Measurements measurementsSince(Request request, WeatherStation station) {
+        String sinceParam = request.queryParams("since");
+        checkArgument(sinceParam != null && !sinceParam.isEmpty());
+        long epochSeconds = Long.parseLong(sinceParam);
+        Instant since = Instant.ofEpochSecond(epochSeconds);
+        Instant upTo = Instant.now();
+        Measurements measurements = station.repository()
+                                           .between(since, upTo);
+        log.atFine()
+           .log("Found `%d` measurements of `%s` between %s and %s.",
+                measurements.measurements().size(), station.id(), since, upTo);
+        return measurements;
+    }
+
+    /**
+     * Obtains the measurements stored after the one with the given sequence number.
+     *
+     * <p>The number of the measurements is limited by the {@code limit} query parameter,
+     * which may not exceed {@link #MAX_PAGE_SIZE}.
+     */
+    private static Measurements measurementsAfter(Request request,
+                                                  WeatherStation station,
+                                                  String afterParam) {
+        long after = Long.parseLong(afterParam);
+        String limitParam = request.queryParams("limit");
+        int limit = limitParam == null
+                    ? MAX_PAGE_SIZE
+                    : Math.min(Integer.parseInt(limitParam), MAX_PAGE_SIZE);
+        Measurements measurements = station.repository()
+                                           .after(after, limit);
+        log.atFine()
+           .log("Found `%d` measurements of `%s` after #%d.",
+                measurements.measurements().size(), station.id(), after);
+        return measurements;
+    }
+
+    /**
+     * Rejects the request if the given cursor is stale.
+     *
+     * <p>The cursor is stale if the given epoch does not match the epoch of the sequence numbers
+     * of the given station, or if the cursor is greater than the sequence number of the last
+     * stored measurement. Such a cursor was issued before the storage started numbering
+     * the measurements anew. The client should resume reading by the time of the last received
+     * measurement instead.
+     *
+     * @param after
+     *         the sequence number of the last measurement received by the client
+     * @param epoch
+     *         the epoch of the sequence number or {@code null} if the client has not passed it
+     * @param station
+     *         the station which the client reads
+     */
+    private static void checkCursor(long after, @Nullable String epoch, WeatherStation station) {
+        MeasurementRepository repository = station.repository();
+        if (epoch != null && Long.parseLong(epoch) != repository.epoch()) {
+            halt(STALE_CURSOR_STATUS,
+                 "The cursor belongs to another epoch of the sequence numbers.");
+        }
+        if (after > repository.lastSequence()) {
+            halt(STALE_CURSOR_STATUS,
+                 "The cursor is ahead of the last stored measurement.");
+        }
+    }
+
+    /**
+     * Obtains the cursor from which the client should continue reading.
+     *
+     * <p>This is the sequence number of the last returned measurement. If there are
+     * no measurements, this is the cursor passed by the client.
+     *
+     * @return the next cursor or {@code null} if the client has not passed a cursor and
+     *         there are no measurements
+     */
+    private static @Nullable Long nextCursor(Measurements measurements,
+                                             @Nullable String afterParam) {
+        ImmutableList<Measurement> list = measurements.measurements();
+        if (!list.isEmpty()) {
+            return list.get(list.size() - 1)
+                       .sequence();
+        }
+        return afterParam == null ? null : Long.parseLong(afterParam);
+    }
+
+    /**
+     * Obtains the station requested by the {@code station} query parameter, or the default
+     * station if the parameter is absent.
+     */
+    private static WeatherStation station(Request request,
+                                          Map<String, WeatherStation> stations,
+                                          WeatherStation defaultStation) {
+        String id = request.queryParams("station");
+        if (id == null) {
+            return defaultStation;
+        }
+        WeatherStation station = stations.get(id);
+        checkArgument(station != null, "Unknown weather station `%s`.", id);
+        return station;
+    }
+
+    private static boolean acceptsProtobuf(Request request) {
+        String accept = request.headers(ACCEPT_HEADER);
+        return accept != null && accept.contains(PROTOBUF_CONTENT_TYPE);
+    }
+
+    /**
+     * Obtains the sequence number after which the client resumes the event stream.
+     *
+     * <p>The number is passed in the {@code after} query parameter along with the {@code epoch}
+     * one or, as server-sent event clients do on reconnection, in the {@code Last-Event-ID}
+     * header. The header holds the ID of the last received event, which is the epoch and
+     * the sequence number separated by a colon.
+     *
+     * <p>The request is rejected if the cursor is {@linkplain #checkCursor stale}.
+     *
+     * @return the sequence number or {@code null} if the client does not resume
+     *         by a sequence number
+     */
+    private static @Nullable Long streamCursor(Request request, WeatherStation station) {
+        String afterParam = request.queryParams("after");
+        if (afterParam != null) {
+            long after = Long.parseLong(afterParam);
+            checkCursor(after, request.queryParams("epoch"), station);
+            return after;
+        }
+        String lastEventId = request.headers(LAST_EVENT_ID_HEADER);
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.indexOf(EVENT_ID_SEPARATOR);
+        String epoch = separator < 0
+                       ? null
+                       : lastEventId.substring(0, separator);
+        long after = Long.parseLong(lastEventId.substring(separator + 1));
+        checkCursor(after, epoch, station);
+        return after;
+    }
+
+    /**
+     * Writes the measurements the client has missed and then each new measurement into
+     * the given stream as server-sent events until the client disconnects.
+     *
+     * <p>The client resumes either after the given {@linkplain #streamCursor sequence number}
+     * of the last measurement it has received, or since the time passed in the {@code since}
+     * query parameter. Otherwise, it only receives the new measurements.
+     *
+     * <p>Blocks the calling thread. If there are no new measurements for a while, sends
+     * a heartbeat comment to keep the connection alive and to detect a disconnected client.
+     */
+    private static void streamEvents(Request request,
+                                     WeatherStation station,
+                                     @Nullable Long after,
+                                     OutputStream out) {
+        MeasurementsJsonWriter writer = MeasurementsJsonWriter.forCurrentThread();
+        long epoch = station.repository()
+                            .epoch();
+        try (MeasurementFeed.Subscriber subscriber = station.feed()
+                                                            .subscribe()) {
+            writer.writeHeartbeat(out);
+            long lastSent = replayMissed(request, station, after, writer, out);
+            while (!subscriber.isOverflowed()) {
+                Measurement measurement = subscriber.next(HEARTBEAT_PERIOD);
+                if (measurement == null) {
+                    writer.writeHeartbeat(out);
+                } else if (measurement.sequence() > lastSent) {
+                    writer.writeEvent(epoch, measurement, out);
+                    lastSent = measurement.sequence();
+                }
+            }
+            log.atWarning()
+               .log("A slow event stream client has been disconnected.");
+        } catch (IOException e) {
+            log.atFine()
+               .withCause(e)
+               .log("Event stream client disconnected.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the stored measurements the client has missed as server-sent events.
+     *
+     * <p>The client is subscribed to the feed before the stored measurements are read,
+     * so the measurements stored meanwhile are both written here and queued in the feed.
+     * The caller skips the queued ones by their sequence numbers.
+     *
+     * @param after
+     *         the sequence number of the last measurement received by the client or
+     *         {@code null} if the client does not resume by a sequence number
+     * @return the sequence number after which the client has received all the measurements,
+     *         or {@code 0} if the client does not resume by a sequence number and no
+     *         measurements were written
+     */
+    private static long replayMissed(Request request,
+                                     WeatherStation station,
+                                     @Nullable Long after,
+                                     MeasurementsJsonWriter writer,
+                                     OutputStream out) throws IOException {
+        MeasurementRepository repository = station.repository();
+        long epoch = repository.epoch();
+        String sinceParam = request.queryParams("since");
+        long lastSent = 0;
+        if (after != null) {
+            lastSent = after;
+            ImmutableList<Measurement> page = repository.after(lastSent, MAX_PAGE_SIZE)
+                                                        .measurements();
+            while (!page.isEmpty()) {
+                for (Measurement measurement : page) {
+                    writer.writeEvent(epoch, measurement, out);
+                }
+                lastSent = page.get(page.size() - 1)
+                               .sequence();
+                page = repository.after(lastSent, MAX_PAGE_SIZE)
+                                 .measurements();
+            }
+        } else if (sinceParam != null) {
+            Instant since = Instant.ofEpochSecond(Long.parseLong(sinceParam));
+            for (Measurement measurement : repository.between(since, Instant.now())
+                                                     .measurements()) {
+                writer.writeEvent(epoch, measurement, out);
+                lastSent = Math.max(lastSent, measurement.sequence());
+            }
+        }
+        return lastSent;
     }
 }
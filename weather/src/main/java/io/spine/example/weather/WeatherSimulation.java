@@ -0,0 +1,119 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.flogger.FluentLogger;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.flogger.FluentLogger.forEnclosingClass;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drives a number of {@link WeatherStation}s at the given sample rate.
+ *
+ * <p>All the stations share one scheduler. Each station is sampled by a periodic task.
+ * If the sample rate is higher than one sample per {@linkplain #MIN_TICK_NANOS millisecond},
+ * a task takes several measurements per run, so that the scheduler overhead does not grow
+ * with the sample rate.
+ */
+final class WeatherSimulation {
+
+    private static final FluentLogger log = forEnclosingClass();
+
+    private static final long MIN_TICK_NANOS = MILLISECONDS.toNanos(1);
+
+    private final ScheduledExecutorService scheduler;
+    private final double samplesPerSecond;
+
+    /**
+     * Creates a new simulation.
+     *
+     * @param scheduler
+     *         the scheduler to run the stations on
+     * @param samplesPerSecond
+     *         the number of measurements each station takes per second
+     */
+    WeatherSimulation(ScheduledExecutorService scheduler, double samplesPerSecond) {
+        checkArgument(samplesPerSecond > 0, "Sample rate must be positive.");
+        this.scheduler = checkNotNull(scheduler);
+        this.samplesPerSecond = samplesPerSecond;
+    }
+
+    /**
+     * Starts taking measurements on the given stations.
+     */
+    void start(Iterable<WeatherStation> stations) {
+        checkNotNull(stations);
+        long samplePeriod = (long) (SECONDS.toNanos(1) / samplesPerSecond);
+        long tick = Math.max(MIN_TICK_NANOS, samplePeriod);
+        double samplesPerTick = samplesPerSecond * tick / SECONDS.toNanos(1);
+        for (WeatherStation station : stations) {
+            Sampler sampler = new Sampler(station, samplesPerTick);
+            scheduler.scheduleAtFixedRate(sampler, tick, tick, NANOSECONDS);
+        }
+    }
+
+    /**
+     * A periodic task which takes measurements on a single station.
+     */
+    private static final class Sampler implements Runnable {
+
+        private final WeatherStation station;
+        private final double samplesPerTick;
+
+        /**
+         * The fraction of a sample carried over from the previous runs.
+         */
+        private double credit;
+
+        private Sampler(WeatherStation station, double samplesPerTick) {
+            this.station = station;
+            this.samplesPerTick = samplesPerTick;
+        }
+
+        @Override
+        public void run() {
+            credit += samplesPerTick;
+            int samples = (int) credit;
+            credit -= samples;
+            try {
+                for (int i = 0; i < samples; i++) {
+                    station.takeMeasurement();
+                }
+            } catch (RuntimeException e) {
+                log.atSevere()
+                   .withCause(e)
+                   .log("Weather station `%s` failed to take a measurement.", station.id());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A weather station which takes measurements with its own {@link MeteoLab}.
+ *
+ * <p>Each station keeps its measurements in a separate repository and publishes them into
+ * a separate feed.
+ *
+ * <p>A station must be driven by a single thread at a time.
+ */
+final class WeatherStation {
+
+    private final String id;
+    private final MeteoLab lab;
+    private final MeasurementRepository repository;
+    private final MeasurementFeed feed = new MeasurementFeed();
+
+    WeatherStation(String id, MeteoLab lab, MeasurementRepository repository) {
+        this.id = checkNotNull(id);
+        this.lab = checkNotNull(lab);
+        this.repository = checkNotNull(repository);
+    }
+
+    /**
+     * Takes a new measurement, stores it, and publishes the stored measurement into the feed.
+     *
+     * <p>A measurement ignored by the storage is not published.
+     */
+    void takeMeasurement() {
+        Measurement stored = repository.store(lab.measure());
+        if (stored != null) {
+            feed.publish(stored);
+        }
+    }
+
+    String id() {
+        return id;
+    }
+
+    MeasurementRepository repository() {
+        return repository;
+    }
+
+    MeasurementFeed feed() {
+        return feed;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("`MeasurementJournal` should")
+class MeasurementJournalTest extends MeasurementStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Override
+    MeasurementStorage newStorage() {
+        return MeasurementJournal.open(directory.resolve("journal"));
+    }
+
+    @Test
+    @DisplayName("restore the measurements and the epoch when reopened")
+    void restoreOnReopen() {
+        storeMeasurements(5);
+        long epoch = storage().epoch();
+
+        MeasurementStorage reopened = newStorage();
+
+        assertEquals(5, reopened.lastSequence());
+        assertEquals(epoch, reopened.epoch());
+        assertEquals(ImmutableList.of(2L, 3L, 4L, 5L), sequencesOf(reopened.after(1, 100)));
+        assertEquals(timeOf(4), reopened.after(4, 1)
+                                        .get(0)
+                                        .whenMeasured());
+    }
+
+    @Test
+    @DisplayName("continue the sequence numbers when reopened")
+    void continueSequence() {
+        storeMeasurements(3);
+
+        MeasurementStorage reopened = newStorage();
+
+        assertEquals(4, reopened.store(measurementAt(10))
+                                .sequence());
+    }
+
+    @Test
+    @DisplayName("start a new epoch when reopened empty")
+    void newEpochWhenEmpty() throws InterruptedException {
+        long epoch = storage().epoch();
+        Thread.sleep(2);
+
+        MeasurementStorage reopened = newStorage();
+
+        assertNotEquals(epoch, reopened.epoch());
+    }
+
+    @Test
+    @DisplayName("ignore a measurement taken earlier than the last stored one")
+    void ignoreOutOfOrder() {
+        storage().store(measurementAt(5));
+
+        assertNull(storage().store(measurementAt(4)));
+        assertEquals(1, storage().lastSequence());
+    }
+}
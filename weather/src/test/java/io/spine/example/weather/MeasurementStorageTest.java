@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tests of the contract shared by all the {@link MeasurementStorage} implementations.
+ */
+abstract class MeasurementStorageTest {
+
+    private static final Instant START = Instant.ofEpochSecond(1_600_000_000L, 123_456_789);
+
+    private MeasurementStorage storage;
+
+    /**
+     * Creates a new empty storage under test.
+     */
+    abstract MeasurementStorage newStorage();
+
+    @BeforeEach
+    void createStorage() {
+        storage = newStorage();
+    }
+
+    MeasurementStorage storage() {
+        return storage;
+    }
+
+    @Test
+    @DisplayName("assign the sequence numbers in the order of storing")
+    void assignSequenceNumbers() {
+        assertEquals(0, storage.lastSequence());
+        for (int i = 0; i < 5; i++) {
+            Measurement stored = storage.store(measurementAt(i));
+            assertNotNull(stored);
+            assertEquals(i + 1, stored.sequence());
+        }
+        assertEquals(5, storage.lastSequence());
+    }
+
+    @Test
+    @DisplayName("ignore a measurement taken at the time of a stored one")
+    void ignoreDuplicateTime() {
+        storage.store(measurementAt(1));
+
+        assertNull(storage.store(measurementAt(1)));
+        assertEquals(1, storage.lastSequence());
+    }
+
+    @Test
+    @DisplayName("keep the measurement values and the time")
+    void keepValues() {
+        Measurement measurement = new Measurement(1.5f, 270.25f, -3.75f, timeOf(7));
+        storage.store(measurement);
+
+        Measurement read = storage.after(0, 1)
+                                  .get(0);
+        assertEquals(1.5f, read.windSpeed());
+        assertEquals(270.25f, read.windDirection());
+        assertEquals(-3.75f, read.temperature());
+        assertEquals(timeOf(7), read.whenMeasured());
+        assertEquals(1, read.sequence());
+    }
+
+    @Test
+    @DisplayName("read the measurements strictly between the given times")
+    void readBetween() {
+        storeMeasurements(10);
+
+        ImmutableList<Measurement> found = storage.between(timeOf(2), timeOf(6));
+
+        assertEquals(ImmutableList.of(4L, 5L, 6L), sequencesOf(found));
+        assertTrue(storage.between(timeOf(6), timeOf(2)).isEmpty());
+        assertTrue(storage.between(timeOf(3), timeOf(3)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("read up to the limit of the measurements after the given sequence number")
+    void readAfter() {
+        storeMeasurements(10);
+
+        assertEquals(ImmutableList.of(4L, 5L, 6L), sequencesOf(storage.after(3, 3)));
+        assertEquals(ImmutableList.of(9L, 10L), sequencesOf(storage.after(8, 100)));
+        assertTrue(storage.after(10, 100).isEmpty());
+        assertTrue(storage.after(3, 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("pass the measurements taken since the given time to the action")
+    void passMeasurementsSince() {
+        storeMeasurements(5);
+        List<Long> sequences = new ArrayList<>();
+
+        storage.forEachSince(timeOf(2), m -> sequences.add(m.sequence()));
+
+        assertEquals(ImmutableList.of(3L, 4L, 5L), sequences);
+    }
+
+    void storeMeasurements(int count) {
+        for (int i = 0; i < count; i++) {
+            storage.store(measurementAt(i));
+        }
+    }
+
+    /**
+     * Creates a measurement taken the given number of seconds after the start of the test.
+     */
+    static Measurement measurementAt(int second) {
+        return new Measurement(second, second * 10, -second, timeOf(second));
+    }
+
+    static Instant timeOf(int second) {
+        return START.plusSeconds(second);
+    }
+
+    static ImmutableList<Long> sequencesOf(List<Measurement> measurements) {
+        return measurements.stream()
+                           .map(Measurement::sequence)
+                           .collect(toImmutableList());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.example.weather;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("`RingBufferStorage` should")
+class RingBufferStorageTest extends MeasurementStorageTest {
+
+    @Override
+    MeasurementStorage newStorage() {
+        return RingBufferStorage.retainingLast(100);
+    }
+
+    @Test
+    @DisplayName("overwrite the oldest measurements when full")
+    void overwriteOldest() {
+        MeasurementStorage storage = RingBufferStorage.retainingLast(4);
+        for (int i = 0; i < 10; i++) {
+            storage.store(measurementAt(i));
+        }
+
+        assertEquals(10, storage.lastSequence());
+        assertEquals(ImmutableList.of(7L, 8L, 9L, 10L), sequencesOf(storage.after(0, 100)));
+        assertEquals(ImmutableList.of(7L, 8L), sequencesOf(storage.between(timeOf(0), timeOf(8))));
+    }
+
+    @Test
+    @DisplayName("ignore a measurement taken earlier than the last stored one")
+    void ignoreOutOfOrder() {
+        storage().store(measurementAt(5));
+
+        assertNull(storage().store(measurementAt(4)));
+        assertEquals(1, storage().lastSequence());
+    }
+}